@@ -0,0 +1,104 @@
+package openblocks.common;
+
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.fluids.Fluid;
+import net.minecraftforge.fluids.FluidRegistry;
+import net.minecraftforge.fluids.FluidStack;
+import openblocks.common.FluidXpUtils.ConversionEntry;
+import openblocks.common.FluidXpUtils.ConverterTable;
+import openblocks.common.FluidXpUtils.IFluidXpConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares linear search over conversion entries with {@link FluidStack#isFluidEqual(FluidStack)} (old behaviour) with lookup by fluid name.
+ * Queries are mix of registered XP fluids (uniformly spread over list) and fluids without conversion (like water in tanks next to machines).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FluidXpConverterBenchmark {
+
+	private static final ResourceLocation TEXTURE = new ResourceLocation("openblocks", "blocks/xpjuice");
+
+	private static final int QUERY_COUNT = 1024;
+
+	@Param({ "1", "12", "32" })
+	public int registeredFluids;
+
+	@Param({ "0", "50" })
+	public int unknownPercent;
+
+	private ConverterTable table;
+
+	private final FluidStack[] queries = new FluidStack[QUERY_COUNT];
+
+	private int index;
+
+	// stacks can only be created for registered fluids
+	private static Fluid getOrRegister(String name) {
+		Fluid fluid = FluidRegistry.getFluid(name);
+		if (fluid == null) {
+			fluid = new Fluid(name, TEXTURE, TEXTURE);
+			FluidRegistry.registerFluid(fluid);
+		}
+		return fluid;
+	}
+
+	@Setup
+	public void setup() {
+		Bootstrap.register();
+
+		final List<FluidStack> known = Lists.newArrayList();
+		final List<ConversionEntry> entries = Lists.newArrayList();
+		for (int i = 0; i < registeredFluids; i++) {
+			final Fluid fluid = getOrRegister("xp_fluid_" + i);
+			known.add(new FluidStack(fluid, 1000));
+			entries.add(new ConversionEntry(new FluidStack(fluid, 1000), FluidXpUtils.xpJuiceConverter));
+		}
+
+		table = new ConverterTable(entries);
+
+		final FluidStack[] unknown = new FluidStack[8];
+		for (int i = 0; i < unknown.length; i++)
+			unknown[i] = new FluidStack(getOrRegister("other_fluid_" + i), 1000);
+
+		for (int i = 0; i < QUERY_COUNT; i++) {
+			final boolean isUnknown = (i * 37) % 100 < unknownPercent;
+			queries[i] = isUnknown? unknown[i % unknown.length] : known.get((i * 7919) % known.size());
+		}
+	}
+
+	private FluidStack nextQuery() {
+		final FluidStack stack = queries[index];
+		index = (index + 1) % QUERY_COUNT;
+		return stack;
+	}
+
+	@Benchmark
+	public Optional<IFluidXpConverter> linearScan() {
+		return table.scan(nextQuery());
+	}
+
+	@Benchmark
+	public Optional<IFluidXpConverter> mapLookup() {
+		return table.get(nextQuery());
+	}
+}
@@ -0,0 +1,92 @@
+package openblocks.common;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import openblocks.common.HeightMapData.LayerData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encoding and decoding of sample map layers. Correctness and encoded sizes are covered by HeightMapCodecTest.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeightMapCodecBenchmark {
+
+	public enum Sample {
+		empty {
+			@Override
+			public void generate(Random random, LayerData layer) {}
+		},
+		superflat {
+			@Override
+			public void generate(Random random, LayerData layer) {
+				Arrays.fill(layer.heightMap, (byte)4);
+				Arrays.fill(layer.colorMap, (byte)1);
+			}
+		},
+		hills {
+			@Override
+			public void generate(Random random, LayerData layer) {
+				for (int y = 0; y < HeightMapData.SIZE; y++)
+					for (int x = 0; x < HeightMapData.SIZE; x++) {
+						final int index = y * HeightMapData.SIZE + x;
+						final int height = 70 + (int)(12 * Math.sin(x / 7.0) + 9 * Math.cos(y / 5.0)) + random.nextInt(2);
+						layer.heightMap[index] = (byte)height;
+						layer.colorMap[index] = (byte)(height < 64? 12 : (height > 85? 11 : 1));
+					}
+			}
+		},
+		noise {
+			@Override
+			public void generate(Random random, LayerData layer) {
+				random.nextBytes(layer.heightMap);
+				random.nextBytes(layer.colorMap);
+			}
+		};
+
+		public abstract void generate(Random random, LayerData layer);
+	}
+
+	@Param
+	public Sample sample;
+
+	private LayerData layer;
+
+	private byte[] encoded;
+
+	private final LayerData target = new LayerData();
+
+	@Setup
+	public void setup() {
+		layer = new LayerData();
+		sample.generate(new Random(0), layer);
+		encoded = HeightMapCodec.encode(layer);
+	}
+
+	@Benchmark
+	public byte[] encode() {
+		return HeightMapCodec.encode(layer);
+	}
+
+	@Benchmark
+	public LayerData decode() throws DataFormatException {
+		HeightMapCodec.decode(encoded, target);
+		return target;
+	}
+}
@@ -0,0 +1,131 @@
+package openblocks.common;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import openblocks.common.MapDataBuilder.ColumnSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scans set of synthetic chunks with full (256 lookups per column) and section-aware column scan.
+ * Blocks used in generated terrain don't depend on world for map colour, so no world is needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapColumnScanBenchmark {
+
+	private static final int CHUNK_COUNT = 16;
+
+	public enum Terrain {
+		superflat {
+			@Override
+			public void generate(Random random, Column column) {
+				column.set(0, Blocks.BEDROCK.getDefaultState());
+				column.set(1, Blocks.DIRT.getDefaultState());
+				column.set(2, Blocks.DIRT.getDefaultState());
+				column.set(3, Blocks.GRASS.getDefaultState());
+			}
+		},
+		amplified {
+			@Override
+			public void generate(Random random, Column column) {
+				final int height = 40 + random.nextInt(200);
+				column.fill(0, height, Blocks.STONE.getDefaultState());
+				if (height < 62) column.fill(height + 1, 62, Blocks.WATER.getDefaultState());
+				else column.set(height, Blocks.GRASS.getDefaultState());
+			}
+		},
+		ocean {
+			@Override
+			public void generate(Random random, Column column) {
+				final int height = 30 + random.nextInt(10);
+				column.fill(0, height, Blocks.STONE.getDefaultState());
+				column.fill(height + 1, 62, Blocks.WATER.getDefaultState());
+			}
+		};
+
+		public abstract void generate(Random random, Column column);
+	}
+
+	private static class Column {
+		private final ExtendedBlockStorage[] sections;
+		private final int x;
+		private final int z;
+
+		public Column(ExtendedBlockStorage[] sections, int x, int z) {
+			this.sections = sections;
+			this.x = x;
+			this.z = z;
+		}
+
+		public void set(int y, IBlockState state) {
+			ExtendedBlockStorage section = sections[y >> 4];
+			if (section == null) {
+				section = new ExtendedBlockStorage(y & ~15, true);
+				sections[y >> 4] = section;
+			}
+			section.set(x, y & 15, z, state);
+		}
+
+		public void fill(int fromY, int toY, IBlockState state) {
+			for (int y = fromY; y <= toY; y++)
+				set(y, state);
+		}
+	}
+
+	@Param
+	public Terrain terrain;
+
+	private final ExtendedBlockStorage[][] chunks = new ExtendedBlockStorage[CHUNK_COUNT][];
+
+	@Setup
+	public void setup() {
+		Bootstrap.register();
+
+		final Random random = new Random(0);
+		for (int i = 0; i < CHUNK_COUNT; i++) {
+			final ExtendedBlockStorage[] sections = new ExtendedBlockStorage[16];
+			for (int x = 0; x < 16; x++)
+				for (int z = 0; z < 16; z++)
+					terrain.generate(random, new Column(sections, x, z));
+
+			if (!ColumnSnapshot.capture(null, sections).isSame(ColumnSnapshot.captureFullScan(null, sections)))
+				throw new AssertionError("Scan results differ");
+
+			chunks[i] = sections;
+		}
+	}
+
+	@Benchmark
+	public ColumnSnapshot[] fullScan() {
+		final ColumnSnapshot[] result = new ColumnSnapshot[CHUNK_COUNT];
+		for (int i = 0; i < CHUNK_COUNT; i++)
+			result[i] = ColumnSnapshot.captureFullScan(null, chunks[i]);
+		return result;
+	}
+
+	@Benchmark
+	public ColumnSnapshot[] sectionScan() {
+		final ColumnSnapshot[] result = new ColumnSnapshot[CHUNK_COUNT];
+		for (int i = 0; i < CHUNK_COUNT; i++)
+			result[i] = ColumnSnapshot.capture(null, chunks[i]);
+		return result;
+	}
+}
@@ -0,0 +1,164 @@
+package openblocks.common;
+
+import com.google.common.collect.Maps;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import openblocks.common.NotificationCoalescer.Batch;
+import openblocks.common.NotificationCoalescer.INotifiable;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Single tick of filling 1000-tank wall (10x10x10), where every tank changes few times per tick (pipe inserts and balancing).
+ * Compares notifying world on every change with notifications coalesced to end of tick and filtered by comparator level.
+ * World notification is replaced by stub that does same lookups as vanilla path: neighbour update of all six sides
+ * (neighbours read comparator level) and comparator update on horizontal sides (two blocks each).
+ * Lookups go through hash map, so real cost (chunk storage, block callbacks) is higher - results are lower bound of win.
+ * Count of world notifications per tick is reported as 'notifications' counter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TankWallNotificationBenchmark {
+
+	private static final int TANK_COUNT = 1000;
+
+	private static final int CAPACITY = 16000;
+
+	@Param({ "1", "4", "16" })
+	public int changesPerTick;
+
+	@Param({ "50", "1000" })
+	public int amountPerChange;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Counters {
+		public long notifications;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			notifications = 0;
+		}
+	}
+
+	private static final EnumFacing[] HORIZONTALS = EnumFacing.HORIZONTALS;
+
+	private static final EnumFacing[] SIDES = EnumFacing.VALUES;
+
+	private final Map<BlockPos, FakeTank> world = Maps.newHashMap();
+
+	private class FakeTank implements INotifiable {
+		private final BlockPos pos;
+
+		private int amount;
+
+		private int lastComparatorLevel = -1;
+
+		private Counters counters;
+
+		private Blackhole blackhole;
+
+		public FakeTank(BlockPos pos) {
+			this.pos = pos;
+		}
+
+		public void fill() {
+			amount += amountPerChange;
+			if (amount > CAPACITY) amount = 0;
+		}
+
+		public int getComparatorLevel() {
+			double value = (double)amount / CAPACITY * 15;
+			if (value == 0) return 0;
+			return Math.max((int)Math.floor(value), 1);
+		}
+
+		public void notifyWorld() {
+			counters.notifications++;
+
+			// notifyNeighborsOfStateChange
+			for (EnumFacing side : SIDES) {
+				final FakeTank neighbour = world.get(pos.offset(side));
+				if (neighbour != null) blackhole.consume(neighbour.getComparatorLevel());
+			}
+
+			// updateComparatorOutputLevel
+			for (EnumFacing side : HORIZONTALS) {
+				final BlockPos neighbourPos = pos.offset(side);
+				final FakeTank neighbour = world.get(neighbourPos);
+				if (neighbour != null) blackhole.consume(neighbour.getComparatorLevel());
+				else blackhole.consume(world.get(neighbourPos.offset(side)));
+			}
+		}
+
+		@Override
+		public void onCoalescedNotification() {
+			final int level = getComparatorLevel();
+			if (level != lastComparatorLevel) {
+				lastComparatorLevel = level;
+				notifyWorld();
+			}
+		}
+	}
+
+	private final FakeTank[] tanks = new FakeTank[TANK_COUNT];
+
+	private final Batch batch = new Batch();
+
+	@Setup
+	public void setup() {
+		for (int i = 0; i < TANK_COUNT; i++) {
+			final FakeTank tank = new FakeTank(new BlockPos(i % 10, (i / 10) % 10, i / 100));
+			tank.amount = (i * 7919) % CAPACITY;
+			tanks[i] = tank;
+			world.put(tank.pos, tank);
+		}
+	}
+
+	private void attach(Counters counters, Blackhole blackhole) {
+		for (FakeTank tank : tanks) {
+			tank.counters = counters;
+			tank.blackhole = blackhole;
+		}
+	}
+
+	@Benchmark
+	public void immediate(Counters counters, Blackhole blackhole) {
+		attach(counters, blackhole);
+		for (int change = 0; change < changesPerTick; change++)
+			for (FakeTank tank : tanks) {
+				tank.fill();
+				tank.notifyWorld();
+			}
+	}
+
+	@Benchmark
+	public void coalesced(Counters counters, Blackhole blackhole) {
+		attach(counters, blackhole);
+		for (int change = 0; change < changesPerTick; change++)
+			for (FakeTank tank : tanks) {
+				tank.fill();
+				batch.add(tank);
+			}
+
+		batch.flush();
+	}
+}
@@ -0,0 +1,72 @@
+package openblocks.shapes;
+
+import java.util.concurrent.TimeUnit;
+import openmods.geometry.HalfAxis;
+import openmods.geometry.Orientation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Covers every stage of guide shape generation separately: generator with de-duplication, sorting and orientation transform.
+ * Run with GC profiler (default in 'jmh' task) to get allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuideShapeBenchmark {
+
+	private static final ICoordFilter EXCLUDE_CENTER = (x, y, z) -> (x != 0) || (y != 0) || (z != 0);
+
+	@Param({ "Sphere", "Cylinder", "Cuboid", "FullCuboid", "Dome", "Triangle", "Pentagon", "Hexagon", "Octagon", "Axes", "Planes" })
+	public GuideShape shape;
+
+	@Param({ "4", "16", "64" })
+	public int size;
+
+	private ShapeParams params;
+
+	private long[] collected;
+
+	private long[] sorted;
+
+	@Setup
+	public void setup() {
+		// any non-identity orientation, so transform does actual work
+		final Orientation orientation = Orientation.values()[0].rotateAround(HalfAxis.POS_Y);
+		params = new ShapeParams(shape, size, size, size, size, size, size, orientation, EXCLUDE_CENTER);
+		collected = PackedShapeBuilder.collect(shape.generator, params);
+		sorted = PackedShapeBuilder.sort(collected);
+	}
+
+	@Benchmark
+	public long[] fullPipeline() {
+		return PackedShapeBuilder.build(params);
+	}
+
+	@Benchmark
+	public long[] generateAndDeduplicate() {
+		return PackedShapeBuilder.collect(shape.generator, params);
+	}
+
+	@Benchmark
+	public long[] sort() {
+		return PackedShapeBuilder.sort(collected);
+	}
+
+	@Benchmark
+	public long[] transform() {
+		return PackedShapeBuilder.transform(sorted, params.orientation);
+	}
+}
@@ -65,6 +65,17 @@ public class Config {
 	@ConfigProperty(category = "tanks", name = "fluidDifferenceUpdateThreshold", comment = "Minimal difference in fluid level between neigbors required for tank update (can be used for performance finetuning")
 	public static int tankFluidUpdateThreshold = 0;
 
+	@ConfigProperty(category = "tanks", name = "useTankNetworks", comment = "If true, connected tanks with same fluid will share single fluid storage (filled bottom-up) instead of balancing with neighbours every tick")
+	public static boolean useTankNetworks = false;
+
+	@OnLineModifiable
+	@ConfigProperty(category = "tanks", name = "sleepWhenIdle", comment = "If true, tanks with nothing to do will be removed from ticking tile list until something changes")
+	public static boolean tanksSleepWhenIdle = true;
+
+	@OnLineModifiable
+	@ConfigProperty(category = "tanks", name = "compactSync", comment = "If true, tanks will send only quantized fluid level (batched per chunk) to clients, instead of full contents")
+	public static boolean tanksCompactSync = false;
+
 	@ConfigProperty(category = "tanks", name = "allowBucketDrain", comment = "Can buckets be filled directly from tank? (works only for vanilla fluids, universal bucket and ones registered in 'bucketItems')")
 	public static boolean allowBucketDrain = true;
 
@@ -87,6 +98,22 @@ public class Config {
 	@ConfigProperty(category = "tanks", name = "emitLight", comment = "Tanks will emit light when they contain a liquid that glows (eg. lava)")
 	public static boolean tanksEmitLight = true;
 
+	@OnLineModifiable
+	@ConfigProperty(category = "collectors", name = "adaptiveScanning", comment = "If true, vacuum hoppers and XP drains will scan for entities less often while nothing is around (scan is forced when entity enters nearby chunks)")
+	public static boolean collectorsAdaptiveScanning = true;
+
+	@OnLineModifiable
+	@ConfigProperty(category = "collectors", name = "maxScanInterval", comment = "Maximal number of ticks between entity scans of idle vacuum hoppers and XP drains")
+	public static int collectorsMaxScanInterval = 40;
+
+	@OnLineModifiable
+	@ConfigProperty(category = "collectors", name = "nearbyScanInterval", comment = "Maximal number of ticks between entity scans of vacuum hoppers and XP drains, when items or orbs are present in nearby chunks (but not in range)")
+	public static int collectorsNearbyScanInterval = 4;
+
+	@OnLineModifiable
+	@ConfigProperty(category = "collectors", name = "coalesceXpOrbs", comment = "If true, XP orbs spawned near vacuum hoppers and XP drains will be merged into single orb per block")
+	public static boolean collectorsCoalesceXpOrbs = true;
+
 	@OnLineModifiable
 	@ConfigProperty(category = "sprinkler", name = "fertilizeChance", comment = "1/chance that crops will be fertilized without bonemeal")
 	public static int sprinklerFertilizeChance = 500;
@@ -266,6 +293,9 @@ public class Config {
 	@ConfigProperty(category = "cartographer", name = "reportInvalidRequest", comment = "Should invalid height map request be always reported")
 	public static boolean alwaysReportInvalidMapRequests = false;
 
+	@ConfigProperty(category = "cartographer", name = "samplerThreads", comment = "Number of background threads used for converting scanned chunks to height map pixels")
+	public static int mapSamplerThreads = 1;
+
 	@ConfigProperty(category = "radio", name = "radioVillagerEnabled", comment = "Should add radio villager profession")
 	public static boolean radioVillagerEnabled = true;
 
@@ -336,9 +366,27 @@ public class Config {
 	@ConfigProperty(category = "guide", name = "renderDistanceSq", comment = "Square of guide maximum render distance")
 	public static double guideRenderRangeSq = 256 * 256;
 
+	@OnLineModifiable
+	@ConfigProperty(category = "guide", name = "lodDistance", comment = "Distance after which guide markers are thinned out (0 - always render all markers)")
+	public static double guideLodDistance = 48;
+
 	@ConfigProperty(category = "guide", name = "useAdvancedRenderer", comment = "Try to use advanced OpenGL for performance improvement")
 	public static boolean useAdvancedRenderer = true;
 
+	@ConfigProperty(category = "guide", name = "shapeGeneratorThreads", comment = "Number of background threads used for generating guide shapes")
+	public static int guideShapeGeneratorThreads = 2;
+
+	@ConfigProperty(category = "guide", name = "shapeCacheSize", comment = "Maximum total number of points in shared cache of generated guide shapes")
+	public static int guideShapeCacheSize = 1 << 20;
+
+	@OnLineModifiable
+	@ConfigProperty(category = "guide", name = "fillBlocksPerTick", comment = "Maximum number of blocks placed by creative builder guide fills in single tick")
+	public static int guideFillBlocksPerTick = 1024;
+
+	@OnLineModifiable
+	@ConfigProperty(category = "guide", name = "fillTimePerTick", comment = "Maximum time (in milliseconds) spent on creative builder guide fills in single tick")
+	public static int guideFillTimePerTick = 10;
+
 	@OnLineModifiable
 	@ConfigProperty(category = "scaffolding", name = "despawnRate", comment = "The rate at which scaffolding should break. 0 - fastest")
 	public static int scaffoldingDespawnRate = 4;
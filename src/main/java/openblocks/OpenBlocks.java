@@ -33,6 +33,8 @@ import net.minecraftforge.fml.common.event.FMLInterModComms;
 import net.minecraftforge.fml.common.event.FMLPostInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
+import net.minecraftforge.fml.common.event.FMLServerStoppedEvent;
+import net.minecraftforge.fml.common.event.FMLServerStoppingEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.network.NetworkRegistry;
 import net.minecraftforge.fml.common.registry.EntityRegistry;
@@ -43,23 +45,32 @@ import net.minecraftforge.oredict.OreDictionary;
 import net.minecraftforge.registries.IForgeRegistry;
 import openblocks.advancements.Criterions;
 import openblocks.common.CanvasReplaceBlacklist;
+import openblocks.common.CommandDebug;
 import openblocks.common.CommandInventory;
 import openblocks.common.DonationUrlManager;
 import openblocks.common.ElevatorActionHandler;
 import openblocks.common.ElevatorBlockRules;
 import openblocks.common.EntityEventHandler;
+import openblocks.common.EntityScanScheduler;
+import openblocks.common.FillJobQueue;
 import openblocks.common.FluidXpUtils;
 import openblocks.common.GameRuleManager;
 import openblocks.common.GuideActionHandler;
 import openblocks.common.LootHandler;
 import openblocks.common.LuggageDropHandler;
+import openblocks.common.MachineSyncTracker;
 import openblocks.common.MagnetWhitelists;
 import openblocks.common.MapDataManager;
+import openblocks.common.MapSamplingExecutor;
+import openblocks.common.NotificationCoalescer;
 import openblocks.common.PedometerHandler;
 import openblocks.common.PlayerDeathHandler;
 import openblocks.common.PlayerInventoryStore;
 import openblocks.common.RadioVillagerTrades;
 import openblocks.common.ServerTickHandler;
+import openblocks.common.TankLevelSyncManager;
+import openblocks.common.TileSleepManager;
+import openblocks.common.XpOrbCoalescer;
 import openblocks.common.block.BlockAutoAnvil;
 import openblocks.common.block.BlockAutoEnchantmentTable;
 import openblocks.common.block.BlockBearTrap;
@@ -699,11 +710,12 @@ public class OpenBlocks {
 			NetworkEventManager.startRegistration(evt.getRegistry())
 					.register(MapDataManager.MapDataRequestEvent.class)
 					.register(MapDataManager.MapDataResponseEvent.class)
-					.register(MapDataManager.MapUpdatesEvent.class)
+					.register(MapDataManager.MapTilesEvent.class)
 					.register(ElevatorActionEvent.class)
 					.register(PlayerActionEvent.class)
 					.register(GuideActionEvent.class)
-					.register(EntityMiniMe.OwnerChangeEvent.class);
+					.register(EntityMiniMe.OwnerChangeEvent.class)
+					.register(TankLevelSyncManager.TankLevelsEvent.class);
 		}
 	}
 
@@ -793,6 +805,11 @@ public class OpenBlocks {
 			MinecraftForge.EVENT_BUS.register(new GuideActionHandler());
 		}
 
+		if (Blocks.builderGuide != null) {
+			MinecraftForge.EVENT_BUS.register(FillJobQueue.instance);
+			MinecraftForge.EVENT_BUS.register(new TileEntityBuilderGuide.BlockChangeListener());
+		}
+
 		if (Items.xpBucket != null) {
 			if (Config.xpBucketDirectFill)
 				MinecraftForge.EVENT_BUS.register(new SingleFluidBucketFillHandler(new ItemStack(Items.xpBucket)));
@@ -813,6 +830,20 @@ public class OpenBlocks {
 
 		MinecraftForge.EVENT_BUS.register(new GameRuleManager());
 
+		MinecraftForge.EVENT_BUS.register(TileSleepManager.instance);
+
+		MinecraftForge.EVENT_BUS.register(TankLevelSyncManager.instance);
+
+		MinecraftForge.EVENT_BUS.register(NotificationCoalescer.instance);
+
+		MinecraftForge.EVENT_BUS.register(EntityScanScheduler.instance);
+
+		MinecraftForge.EVENT_BUS.register(MachineSyncTracker.instance);
+
+		MinecraftForge.EVENT_BUS.register(XpOrbCoalescer.instance);
+
+		MinecraftForge.EVENT_BUS.register(MapSamplingExecutor.instance);
+
 		LootHandler.register();
 
 		proxy.preInit();
@@ -906,6 +937,18 @@ public class OpenBlocks {
 		evt.registerServerCommand(new CommandFlimFlam());
 		evt.registerServerCommand(new CommandLuck());
 		evt.registerServerCommand(new CommandInventory());
+		evt.registerServerCommand(new CommandDebug());
+	}
+
+	@EventHandler
+	public void serverStopping(FMLServerStoppingEvent evt) {
+		// pending map pixels must be stored before worlds are saved
+		MapSamplingExecutor.instance.drain();
+	}
+
+	@EventHandler
+	public void serverStopped(FMLServerStoppedEvent evt) {
+		TankLevelSyncManager.instance.resetPalette();
 	}
 
 	public static String getModId() {
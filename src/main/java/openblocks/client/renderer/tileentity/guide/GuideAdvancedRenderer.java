@@ -13,20 +13,24 @@ public class GuideAdvancedRenderer implements IGuideRenderer {
 
 	private final MarkerRenderer mr;
 
+	private final GuideFrustum frustum = GuideFrustum.instance;
+
 	public GuideAdvancedRenderer() {
 		this.mr = new MarkerRenderer();
 	}
 
 	@Override
-	public void renderShape(TileEntityGuide guide) {
+	public void renderShape(TileEntityGuide guide, double x, double y, double z) {
+		frustum.update(x, y, z);
 		float scaleDelta = guide.getTimeSinceChange();
-		renderShape(guide.getShape(), guide.getColor(), scaleDelta);
-		if (scaleDelta < 1.0) renderShape(guide.getPreviousShape(), guide.getColor(), 1.0f - scaleDelta);
+		// x,y,z is guide position relative to camera
+		renderShape(guide.getShape(), guide.getColor(), scaleDelta, -x, -y, -z);
+		if (scaleDelta < 1.0) renderShape(guide.getPreviousShape(), guide.getColor(), 1.0f - scaleDelta, -x, -y, -z);
 		CoordShape toDelete = guide.getAndDeleteShape();
 		if (toDelete != null && mr != null) mr.deleteShape(toDelete);
 	}
 
-	private void renderShape(CoordShape shape, int color, float scale) {
+	private void renderShape(CoordShape shape, int color, float scale, double camX, double camY, double camZ) {
 		if (shape == null) return;
 
 		GlStateManager.enableBlend();
@@ -36,7 +40,7 @@ public class GuideAdvancedRenderer implements IGuideRenderer {
 
 		TextureUtils.bindTextureToClient(TextureMap.LOCATION_BLOCKS_TEXTURE);
 
-		mr.drawInstanced(shape, color, scale);
+		mr.drawInstanced(shape, color, scale, frustum, camX, camY, camZ);
 
 		GlStateManager.enableLighting();
 		GlStateManager.disableBlend();
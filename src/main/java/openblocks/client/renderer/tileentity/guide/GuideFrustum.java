@@ -0,0 +1,110 @@
+package openblocks.client.renderer.tileentity.guide;
+
+import java.nio.FloatBuffer;
+import net.minecraft.client.renderer.GLAllocation;
+import net.minecraft.client.renderer.GlStateManager;
+import org.lwjgl.opengl.GL11;
+
+/**
+ * Frustum extracted from current GL matrices. Unlike vanilla ClippingHelperImpl it's not shared, so it can be recalculated in TESR without breaking world culling.
+ * Matrices are read only once per frame (reading them stalls pipeline), planes are then moved to origin of each rendered guide.
+ * Boxes are tested in guide space.
+ */
+public class GuideFrustum {
+
+	public static final GuideFrustum instance = new GuideFrustum();
+
+	private final FloatBuffer projectionBuffer = GLAllocation.createDirectFloatBuffer(16);
+	private final FloatBuffer modelviewBuffer = GLAllocation.createDirectFloatBuffer(16);
+
+	private final float[] projection = new float[16];
+	private final float[] modelview = new float[16];
+	private final float[] clip = new float[16];
+
+	// planes relative to camera
+	private final float[][] cameraPlanes = new float[6][4];
+
+	private final float[][] planes = new float[6][4];
+
+	private boolean valid;
+
+	/**
+	 * Should be called on start of every frame.
+	 */
+	public void invalidate() {
+		valid = false;
+	}
+
+	/**
+	 * @param x guide position relative to camera. Modelview matrix must be already translated by this vector.
+	 */
+	public void update(double x, double y, double z) {
+		if (!valid) {
+			readMatrices();
+			for (int i = 0; i < 6; i++) {
+				final float[] plane = planes[i];
+				final float[] cameraPlane = cameraPlanes[i];
+				cameraPlane[0] = plane[0];
+				cameraPlane[1] = plane[1];
+				cameraPlane[2] = plane[2];
+				cameraPlane[3] = (float)(plane[3] - plane[0] * x - plane[1] * y - plane[2] * z);
+			}
+			valid = true;
+		}
+
+		for (int i = 0; i < 6; i++) {
+			final float[] plane = planes[i];
+			final float[] cameraPlane = cameraPlanes[i];
+			plane[0] = cameraPlane[0];
+			plane[1] = cameraPlane[1];
+			plane[2] = cameraPlane[2];
+			plane[3] = (float)(cameraPlane[3] + cameraPlane[0] * x + cameraPlane[1] * y + cameraPlane[2] * z);
+		}
+	}
+
+	private void readMatrices() {
+		projectionBuffer.clear();
+		modelviewBuffer.clear();
+		GlStateManager.getFloat(GL11.GL_PROJECTION_MATRIX, projectionBuffer);
+		GlStateManager.getFloat(GL11.GL_MODELVIEW_MATRIX, modelviewBuffer);
+		projectionBuffer.rewind();
+		projectionBuffer.get(projection);
+		modelviewBuffer.rewind();
+		modelviewBuffer.get(modelview);
+
+		for (int row = 0; row < 4; row++)
+			for (int column = 0; column < 4; column++) {
+				float v = 0;
+				for (int i = 0; i < 4; i++)
+					v += modelview[row * 4 + i] * projection[i * 4 + column];
+				clip[row * 4 + column] = v;
+			}
+
+		setPlane(0, clip[3] - clip[0], clip[7] - clip[4], clip[11] - clip[8], clip[15] - clip[12]);
+		setPlane(1, clip[3] + clip[0], clip[7] + clip[4], clip[11] + clip[8], clip[15] + clip[12]);
+		setPlane(2, clip[3] + clip[1], clip[7] + clip[5], clip[11] + clip[9], clip[15] + clip[13]);
+		setPlane(3, clip[3] - clip[1], clip[7] - clip[5], clip[11] - clip[9], clip[15] - clip[13]);
+		setPlane(4, clip[3] - clip[2], clip[7] - clip[6], clip[11] - clip[10], clip[15] - clip[14]);
+		setPlane(5, clip[3] + clip[2], clip[7] + clip[6], clip[11] + clip[10], clip[15] + clip[14]);
+	}
+
+	private void setPlane(int index, float a, float b, float c, float d) {
+		final float[] plane = planes[index];
+		plane[0] = a;
+		plane[1] = b;
+		plane[2] = c;
+		plane[3] = d;
+	}
+
+	public boolean isBoxInFrustum(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+		for (float[] plane : planes) {
+			// test corner that is furthest along plane normal
+			final float x = plane[0] > 0? maxX : minX;
+			final float y = plane[1] > 0? maxY : minY;
+			final float z = plane[2] > 0? maxZ : minZ;
+			if (plane[0] * x + plane[1] * y + plane[2] * z + plane[3] < 0) return false;
+		}
+
+		return true;
+	}
+}
@@ -8,7 +8,6 @@ import net.minecraft.client.renderer.GlStateManager;
 import net.minecraft.client.renderer.OpenGlHelper;
 import net.minecraft.client.renderer.WorldVertexBufferUploader;
 import net.minecraft.client.renderer.texture.TextureMap;
-import net.minecraft.util.math.BlockPos;
 import openblocks.common.tileentity.TileEntityGuide;
 import openblocks.shapes.CoordShape;
 import openmods.utils.OptionalInt;
@@ -20,6 +19,8 @@ public class GuideLegacyRenderer implements IGuideRenderer {
 
 	private OptionalInt markerDisplayList = OptionalInt.absent();
 
+	private final GuideFrustum frustum = GuideFrustum.instance;
+
 	@Override
 	public void onModelBake(Supplier<BufferBuilder> model) {
 		if (markerDisplayList.isPresent()) {
@@ -38,11 +39,13 @@ public class GuideLegacyRenderer implements IGuideRenderer {
 	}
 
 	@Override
-	public void renderShape(TileEntityGuide guide) {
+	public void renderShape(TileEntityGuide guide, double x, double y, double z) {
+		frustum.update(x, y, z);
 		float scaleDelta = guide.getTimeSinceChange();
-		renderShape(guide.getShape(), guide.getColor(), scaleDelta);
+		// x,y,z is guide position relative to camera
+		renderShape(guide.getShape(), guide.getColor(), scaleDelta, -x, -y, -z);
 		if (scaleDelta < 1.0) {
-			renderShape(guide.getPreviousShape(), guide.getColor(), 1.0f - scaleDelta);
+			renderShape(guide.getPreviousShape(), guide.getColor(), 1.0f - scaleDelta, -x, -y, -z);
 		}
 	}
 
@@ -52,7 +55,7 @@ public class GuideLegacyRenderer implements IGuideRenderer {
 
 	private final FloatBuffer brightnessBuffer = GLAllocation.createDirectFloatBuffer(4);
 
-	private void renderShape(CoordShape shape, int color, float scale) {
+	private void renderShape(CoordShape shape, int color, float scale, double camX, double camY, double camZ) {
 		if (shape == null || !markerDisplayList.isPresent()) return;
 
 		final int displayList = markerDisplayList.get();
@@ -84,8 +87,14 @@ public class GuideLegacyRenderer implements IGuideRenderer {
 		GlStateManager.glTexEnvi(GL11.GL_TEXTURE_ENV, OpenGlHelper.GL_SOURCE0_ALPHA, GL11.GL_TEXTURE);
 		GlStateManager.glTexEnvi(GL11.GL_TEXTURE_ENV, OpenGlHelper.GL_OPERAND0_ALPHA, GL11.GL_SRC_ALPHA);
 
-		for (BlockPos coord : shape.getCoords())
-			renderMarkerAt(displayList, coord.getX(), coord.getY(), coord.getZ(), scale);
+		final ShapeBatches batches = ShapeBatches.get(shape);
+		final int batchCount = batches.getBatchCount();
+		for (int batch = 0; batch < batchCount; batch++) {
+			final int first = batches.getFirst(batch);
+			final int last = first + batches.getVisibleCount(batch, frustum, camX, camY, camZ);
+			for (int i = first; i < last; i++)
+				renderMarkerAt(displayList, batches.getX(i), batches.getY(i), batches.getZ(i), scale);
+		}
 
 		GlStateManager.setActiveTexture(OpenGlHelper.defaultTexUnit);
 		GlStateManager.disableOutlineMode();
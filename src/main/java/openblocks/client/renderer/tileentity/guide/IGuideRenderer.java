@@ -5,7 +5,7 @@ import net.minecraft.client.renderer.BufferBuilder;
 import openblocks.common.tileentity.TileEntityGuide;
 
 public interface IGuideRenderer {
-	void renderShape(TileEntityGuide guide);
+	void renderShape(TileEntityGuide guide, double x, double y, double z);
 
 	void onModelBake(Supplier<BufferBuilder> modelSupplier);
 }
@@ -38,6 +38,8 @@ public class MarkerRenderer {
 	private int vao;
 	private int vbo;
 
+	private final ShapeBufferCache shapeBuffers = new ShapeBufferCache();
+
 	public MarkerRenderer() {
 		final ShaderProgramBuilder shaderProgramBuilder = new ShaderProgramBuilder();
 		shaderProgramBuilder.addShader(vertexSource, GL20.GL_VERTEX_SHADER);
@@ -118,17 +120,29 @@ public class MarkerRenderer {
 		}
 	}
 
-	public void drawInstanced(CoordShape shape, int color, float scale) {
+	/**
+	 * @param camX camera position, relative to guide
+	 */
+	public void drawInstanced(CoordShape shape, int color, float scale, GuideFrustum frustum, double camX, double camY, double camZ) {
 		shader.bind();
 		initialized = true;
 		if (shouldRefresh) createVAO();
 		ArraysHelper.methods().glBindVertexArray(vao);
-		shape.bindVBO();
-		shader.instanceAttributePointer("aPosition", 3, GL11.GL_FLOAT, false, 0, 0);
-		BufferHelper.methods().glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
 		shader.uniform3f("uColor", ((color >> 16) & 0xFF) / 255f, ((color >> 8) & 0xFF) / 255f, (color & 0xFF) / 255f);
 		shader.uniform1f("uScale", scale);
-		ArraysHelper.methods().glDrawArraysInstanced(GL11.GL_QUADS, 0, vertexCount, shape.size());
+
+		final ShapeBatches batches = shapeBuffers.bind(shape);
+		final int batchCount = batches.getBatchCount();
+		for (int batch = 0; batch < batchCount; batch++) {
+			final int count = batches.getVisibleCount(batch, frustum, camX, camY, camZ);
+			if (count > 0) {
+				// 3 floats per instance
+				shader.instanceAttributePointer("aPosition", 3, GL11.GL_FLOAT, false, 0, batches.getFirst(batch) * 3 * 4);
+				ArraysHelper.methods().glDrawArraysInstanced(GL11.GL_QUADS, 0, vertexCount, count);
+			}
+		}
+
+		BufferHelper.methods().glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
 		ArraysHelper.methods().glBindVertexArray(0);
 		shader.release();
 	}
@@ -136,7 +150,7 @@ public class MarkerRenderer {
 	public void deleteShape(CoordShape shape) {
 		if (initialized) {
 			ArraysHelper.methods().glBindVertexArray(vao);
-			shape.destroy();
+			shapeBuffers.release(shape);
 			ArraysHelper.methods().glBindVertexArray(0);
 		}
 	}
@@ -0,0 +1,180 @@
+package openblocks.client.renderer.tileentity.guide;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import openblocks.Config;
+import openblocks.shapes.CoordShape;
+import openblocks.shapes.PackedCoords;
+import openblocks.shapes.ShapeParams;
+
+/**
+ * Shape points split into 16x16x16 cells (relative to guide), so every cell can be culled separately.
+ * Points inside cell are ordered in way that every prefix is evenly spread over whole cell, so distant cells can be drawn with less markers.
+ */
+public class ShapeBatches {
+
+	private static final int CELL_BITS = 10;
+	private static final int CELL_OFFSET = 1 << (CELL_BITS - 1);
+	private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+
+	// margin for marker model size and offsets used by renderers
+	private static final float BOUNDS_MARGIN = 1.0f;
+
+	private static final Cache<ShapeParams, ShapeBatches> CACHE = CacheBuilder.newBuilder()
+			.expireAfterAccess(30, TimeUnit.SECONDS)
+			.build();
+
+	public static ShapeBatches get(CoordShape shape) {
+		try {
+			return CACHE.get(shape.getParams(), () -> new ShapeBatches(shape));
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private final long[] coords;
+
+	private final int[] first;
+
+	private final int[] count;
+
+	private final float[] bounds;
+
+	private ShapeBatches(CoordShape shape) {
+		final int size = shape.size();
+
+		final long[] keys = new long[size];
+		for (int i = 0; i < size; i++) {
+			final long cellX = ((shape.getX(i) >> 4) + CELL_OFFSET) & CELL_MASK;
+			final long cellY = ((shape.getY(i) >> 4) + CELL_OFFSET) & CELL_MASK;
+			final long cellZ = ((shape.getZ(i) >> 4) + CELL_OFFSET) & CELL_MASK;
+			final long cell = (cellX << (2 * CELL_BITS)) | (cellY << CELL_BITS) | cellZ;
+			keys[i] = (cell << 32) | i;
+		}
+
+		Arrays.sort(keys);
+
+		int batchCount = 0;
+		for (int i = 0; i < size; i++)
+			if (i == 0 || (keys[i] >>> 32) != (keys[i - 1] >>> 32)) batchCount++;
+
+		this.coords = new long[size];
+		this.first = new int[batchCount];
+		this.count = new int[batchCount];
+		this.bounds = new float[batchCount * 6];
+
+		int batch = 0;
+		int start = 0;
+		while (start < size) {
+			final long cell = keys[start] >>> 32;
+			int end = start + 1;
+			while (end < size && (keys[end] >>> 32) == cell)
+				end++;
+
+			fillBatch(shape, keys, start, end, batch);
+			batch++;
+			start = end;
+		}
+	}
+
+	private void fillBatch(CoordShape shape, long[] keys, int start, int end, int batch) {
+		final int length = end - start;
+		first[batch] = start;
+		count[batch] = length;
+
+		float minX = Float.MAX_VALUE;
+		float minY = Float.MAX_VALUE;
+		float minZ = Float.MAX_VALUE;
+
+		float maxX = -Float.MAX_VALUE;
+		float maxY = -Float.MAX_VALUE;
+		float maxZ = -Float.MAX_VALUE;
+
+		// bit-reversed order (van der Corput sequence) - every prefix is spread over whole batch
+		final int bits = 32 - Integer.numberOfLeadingZeros(Math.max(length - 1, 1));
+		int output = start;
+		for (int i = 0; i < (1 << bits); i++) {
+			final int source = Integer.reverse(i) >>> (32 - bits);
+			if (source < length) {
+				final int index = (int)keys[start + source];
+				final int x = shape.getX(index);
+				final int y = shape.getY(index);
+				final int z = shape.getZ(index);
+				coords[output++] = PackedCoords.pack(x, y, z);
+
+				minX = Math.min(minX, x);
+				minY = Math.min(minY, y);
+				minZ = Math.min(minZ, z);
+
+				maxX = Math.max(maxX, x);
+				maxY = Math.max(maxY, y);
+				maxZ = Math.max(maxZ, z);
+			}
+		}
+
+		final int offset = batch * 6;
+		bounds[offset + 0] = minX - BOUNDS_MARGIN;
+		bounds[offset + 1] = minY - BOUNDS_MARGIN;
+		bounds[offset + 2] = minZ - BOUNDS_MARGIN;
+		bounds[offset + 3] = maxX + BOUNDS_MARGIN;
+		bounds[offset + 4] = maxY + BOUNDS_MARGIN;
+		bounds[offset + 5] = maxZ + BOUNDS_MARGIN;
+	}
+
+	public int size() {
+		return coords.length;
+	}
+
+	public int getX(int index) {
+		return PackedCoords.getX(coords[index]);
+	}
+
+	public int getY(int index) {
+		return PackedCoords.getY(coords[index]);
+	}
+
+	public int getZ(int index) {
+		return PackedCoords.getZ(coords[index]);
+	}
+
+	public int getBatchCount() {
+		return first.length;
+	}
+
+	public int getFirst(int batch) {
+		return first[batch];
+	}
+
+	/**
+	 * @param camX camera position, relative to guide
+	 * @return number of points from batch that should be drawn (0 if batch is not visible)
+	 */
+	public int getVisibleCount(int batch, GuideFrustum frustum, double camX, double camY, double camZ) {
+		final int offset = batch * 6;
+		final float minX = bounds[offset + 0];
+		final float minY = bounds[offset + 1];
+		final float minZ = bounds[offset + 2];
+		final float maxX = bounds[offset + 3];
+		final float maxY = bounds[offset + 4];
+		final float maxZ = bounds[offset + 5];
+
+		if (!frustum.isBoxInFrustum(minX, minY, minZ, maxX, maxY, maxZ)) return 0;
+
+		final int total = count[batch];
+		final double lodDistance = Config.guideLodDistance;
+		if (lodDistance <= 0) return total;
+
+		final double dx = Math.max(0, Math.max(minX - camX, camX - maxX));
+		final double dy = Math.max(0, Math.max(minY - camY, camY - maxY));
+		final double dz = Math.max(0, Math.max(minZ - camZ, camZ - maxZ));
+		final double distanceSq = dx * dx + dy * dy + dz * dz;
+		final double lodDistanceSq = lodDistance * lodDistance;
+		if (distanceSq <= lodDistanceSq) return total;
+
+		// marker density drops with square of distance, same as its apparent size
+		return Math.max(1, (int)Math.ceil(total * lodDistanceSq / distanceSq));
+	}
+}
@@ -0,0 +1,109 @@
+package openblocks.client.renderer.tileentity.guide;
+
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import openblocks.shapes.CoordShape;
+import openblocks.shapes.ShapeParams;
+import openmods.renderer.shaders.BufferHelper;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL15;
+
+/**
+ * Instance position buffers, shared between all shapes with same parameters.
+ * Buffer is deleted when last shape using it is released or garbage collected (guides removed without call to release).
+ */
+public class ShapeBufferCache {
+
+	private static class UserRef extends WeakReference<CoordShape> {
+		private final ShapeParams key;
+
+		public UserRef(CoordShape shape, ShapeParams key, ReferenceQueue<CoordShape> queue) {
+			super(shape, queue);
+			this.key = key;
+		}
+	}
+
+	private static class Entry {
+		private int vbo;
+
+		private ShapeBatches batches;
+
+		private final Set<UserRef> users = Sets.newIdentityHashSet();
+	}
+
+	private final Map<ShapeParams, Entry> buffers = Maps.newHashMap();
+
+	// weak identity keys, so shapes are not kept alive by cache
+	private final Map<CoordShape, UserRef> userRefs = new MapMaker().weakKeys().makeMap();
+
+	private final ReferenceQueue<CoordShape> collectedUsers = new ReferenceQueue<>();
+
+	private static int createBuffer(ShapeBatches batches) {
+		final int size = batches.size();
+		final ByteBuffer data = BufferUtils.createByteBuffer(size * 3 * 4);
+		for (int i = 0; i < size; i++)
+			data.putFloat(batches.getX(i) - 0.5f).putFloat(batches.getY(i)).putFloat(batches.getZ(i) - 0.5f);
+		data.flip();
+
+		final int vbo = BufferHelper.methods().glGenBuffers();
+		BufferHelper.methods().glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+		BufferHelper.methods().glBufferData(GL15.GL_ARRAY_BUFFER, data, GL15.GL_STATIC_DRAW);
+		return vbo;
+	}
+
+	/**
+	 * Binds buffer with instance positions. Positions are in same order as in returned batches.
+	 */
+	public ShapeBatches bind(CoordShape shape) {
+		removeCollectedUsers();
+
+		final ShapeParams key = shape.getParams();
+		Entry entry = buffers.get(key);
+		if (entry == null) {
+			entry = new Entry();
+			entry.batches = ShapeBatches.get(shape);
+			entry.vbo = createBuffer(entry.batches);
+			buffers.put(key, entry);
+		} else {
+			BufferHelper.methods().glBindBuffer(GL15.GL_ARRAY_BUFFER, entry.vbo);
+		}
+
+		if (!userRefs.containsKey(shape)) {
+			final UserRef ref = new UserRef(shape, key, collectedUsers);
+			userRefs.put(shape, ref);
+			entry.users.add(ref);
+		}
+
+		return entry.batches;
+	}
+
+	public void release(CoordShape shape) {
+		final UserRef ref = userRefs.remove(shape);
+		if (ref != null) {
+			ref.clear();
+			removeUser(ref);
+		}
+		removeCollectedUsers();
+	}
+
+	private void removeCollectedUsers() {
+		Reference<? extends CoordShape> ref;
+		while ((ref = collectedUsers.poll()) != null)
+			removeUser((UserRef)ref);
+	}
+
+	private void removeUser(UserRef ref) {
+		final Entry entry = buffers.get(ref.key);
+		if (entry != null && entry.users.remove(ref) && entry.users.isEmpty()) {
+			BufferHelper.methods().glDeleteBuffers(entry.vbo);
+			buffers.remove(ref.key);
+		}
+	}
+}
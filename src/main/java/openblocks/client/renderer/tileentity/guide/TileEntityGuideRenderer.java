@@ -16,6 +16,8 @@ import net.minecraftforge.client.model.IModel;
 import net.minecraftforge.client.model.ModelLoaderRegistry;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
 import openblocks.OpenBlocks;
 import openblocks.common.tileentity.TileEntityGuide;
 import org.lwjgl.opengl.GL11;
@@ -61,6 +63,11 @@ public class TileEntityGuideRenderer<T extends TileEntityGuide> extends TileEnti
 		});
 	}
 
+	@SubscribeEvent
+	public void onRenderTick(TickEvent.RenderTickEvent evt) {
+		if (evt.phase == Phase.START) GuideFrustum.instance.invalidate();
+	}
+
 	private static void renderQuads(BufferBuilder vb, List<BakedQuad> quads) {
 		for (BakedQuad quad : quads)
 			vb.addVertexData(quad.getVertexData());
@@ -70,7 +77,7 @@ public class TileEntityGuideRenderer<T extends TileEntityGuide> extends TileEnti
 	public void render(T tileentity, double x, double y, double z, float partialTicks, int destroyStage, float partial) {
 		GL11.glPushMatrix();
 		GL11.glTranslated(x, y, z);
-		renderer.renderShape(tileentity);
+		renderer.renderShape(tileentity, x, y, z);
 		GL11.glPopMatrix();
 	}
 }
@@ -45,13 +45,17 @@ public class DiagonalConnection extends RenderConnection {
 
 	private final float[] height = new float[4];
 
+	private final LevelInterpolator[] interpolators = new LevelInterpolator[] {
+			new LevelInterpolator(), new LevelInterpolator(), new LevelInterpolator(), new LevelInterpolator()
+	};
+
 	public DiagonalConnection(float phase, DoubledCoords coords) {
 		super(coords);
 		this.phase = phase;
 	}
 
 	public float getRenderHeight(Diagonal corner, float time) {
-		float h = height[corner.ordinal()];
+		float h = interpolators[corner.ordinal()].get(time);
 		if (h <= 0) return 0;
 		return TankRenderUtils.calculateRenderHeight(time, phase, h);
 	}
@@ -76,6 +80,13 @@ public class DiagonalConnection extends RenderConnection {
 	}
 
 	private void recalculate() {
+		calculateHeights();
+
+		for (int i = 0; i < height.length; i++)
+			interpolators[i].set(height[i]);
+	}
+
+	private void calculateHeights() {
 		forceZero();
 
 		List<DiagonalConnection.Group> groups = Lists.newArrayList();
@@ -0,0 +1,51 @@
+package openblocks.client.renderer.tileentity.tank;
+
+/**
+ * Smooths fluid level between updates received from server. Time is measured in world ticks (same as render time).
+ */
+public class LevelInterpolator {
+
+	// roughly one server sync period
+	private static final float DURATION = 8.0f;
+
+	private boolean initialized;
+
+	private boolean restart;
+
+	private float from;
+
+	private float to;
+
+	private float startTime;
+
+	private float current;
+
+	public void set(float target) {
+		if (!initialized) {
+			initialized = true;
+			from = to = current = target;
+			return;
+		}
+
+		if (target == to) return;
+
+		// appearing or disappearing fluid is not animated
+		from = (current > 0 && target > 0)? current : target;
+		to = target;
+		restart = true;
+	}
+
+	public float get(float time) {
+		if (restart) {
+			restart = false;
+			startTime = time;
+		}
+
+		final float progress = (time - startTime) / DURATION;
+		if (progress >= 1) current = to;
+		else if (progress <= 0) current = from;
+		else current = from + (to - from) * progress;
+
+		return current;
+	}
+}
@@ -1,7 +1,9 @@
 package openblocks.client.renderer.tileentity.tank;
 
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
@@ -10,11 +12,31 @@ import openblocks.common.tileentity.TileEntityTank;
 import openmods.model.variant.VariantModelState;
 
 public class NeighbourMap {
+
+	private static final String[] KEYS = {
+			"n_t", "n_b",
+			"n_e", "n_w", "n_s", "n_n",
+			"n_te", "n_tw", "n_ts", "n_tn",
+			"n_be", "n_bw", "n_bs", "n_bn",
+			"n_nw", "n_sw", "n_se", "n_ne"
+	};
+
+	// same neighbour configuration always gives same (immutable) state, so all tanks can share it
+	private static final ConcurrentMap<Integer, VariantModelState> INTERNED_STATES = Maps.newConcurrentMap();
+
 	private final VariantModelState state;
 
-	private static void testNeighbour(Set<String> result, World world, FluidStack ownFluid, int x, int y, int z, String id) {
+	private static int testNeighbour(World world, FluidStack ownFluid, int x, int y, int z, int bit) {
 		final TileEntity te = TankRenderUtils.getTileEntitySafe(world, new BlockPos(x, y, z));
-		if (te instanceof TileEntityTank) if (((TileEntityTank)te).accepts(ownFluid)) result.add(id);
+		return (te instanceof TileEntityTank && ((TileEntityTank)te).accepts(ownFluid))? (1 << bit) : 0;
+	}
+
+	private static VariantModelState createState(int mask) {
+		final Set<String> neighbours = Sets.newHashSet();
+		for (int i = 0; i < KEYS.length; i++)
+			if ((mask & (1 << i)) != 0) neighbours.add(KEYS[i]);
+
+		return VariantModelState.create().withKeys(neighbours);
 	}
 
 	public NeighbourMap(World world, BlockPos pos, FluidStack fluid) {
@@ -25,35 +47,35 @@ public class NeighbourMap {
 			final int y = pos.getY();
 			final int z = pos.getZ();
 
-			final Set<String> neighbours = Sets.newHashSet();
-			testNeighbour(neighbours, world, fluid, x + 0, y + 1, z + 0, "n_t");
-			testNeighbour(neighbours, world, fluid, x + 0, y - 1, z + 0, "n_b");
+			int mask = 0;
+			mask |= testNeighbour(world, fluid, x + 0, y + 1, z + 0, 0);
+			mask |= testNeighbour(world, fluid, x + 0, y - 1, z + 0, 1);
 
-			testNeighbour(neighbours, world, fluid, x + 1, y + 0, z + 0, "n_e");
-			testNeighbour(neighbours, world, fluid, x - 1, y + 0, z + 0, "n_w");
-			testNeighbour(neighbours, world, fluid, x + 0, y + 0, z + 1, "n_s");
-			testNeighbour(neighbours, world, fluid, x + 0, y + 0, z - 1, "n_n");
+			mask |= testNeighbour(world, fluid, x + 1, y + 0, z + 0, 2);
+			mask |= testNeighbour(world, fluid, x - 1, y + 0, z + 0, 3);
+			mask |= testNeighbour(world, fluid, x + 0, y + 0, z + 1, 4);
+			mask |= testNeighbour(world, fluid, x + 0, y + 0, z - 1, 5);
 
-			testNeighbour(neighbours, world, fluid, x + 1, y + 1, z + 0, "n_te");
-			testNeighbour(neighbours, world, fluid, x - 1, y + 1, z + 0, "n_tw");
-			testNeighbour(neighbours, world, fluid, x + 0, y + 1, z + 1, "n_ts");
-			testNeighbour(neighbours, world, fluid, x + 0, y + 1, z - 1, "n_tn");
+			mask |= testNeighbour(world, fluid, x + 1, y + 1, z + 0, 6);
+			mask |= testNeighbour(world, fluid, x - 1, y + 1, z + 0, 7);
+			mask |= testNeighbour(world, fluid, x + 0, y + 1, z + 1, 8);
+			mask |= testNeighbour(world, fluid, x + 0, y + 1, z - 1, 9);
 
-			testNeighbour(neighbours, world, fluid, x + 1, y - 1, z + 0, "n_be");
-			testNeighbour(neighbours, world, fluid, x - 1, y - 1, z + 0, "n_bw");
-			testNeighbour(neighbours, world, fluid, x + 0, y - 1, z + 1, "n_bs");
-			testNeighbour(neighbours, world, fluid, x + 0, y - 1, z - 1, "n_bn");
+			mask |= testNeighbour(world, fluid, x + 1, y - 1, z + 0, 10);
+			mask |= testNeighbour(world, fluid, x - 1, y - 1, z + 0, 11);
+			mask |= testNeighbour(world, fluid, x + 0, y - 1, z + 1, 12);
+			mask |= testNeighbour(world, fluid, x + 0, y - 1, z - 1, 13);
 
-			testNeighbour(neighbours, world, fluid, x - 1, y + 0, z - 1, "n_nw");
-			testNeighbour(neighbours, world, fluid, x - 1, y + 0, z + 1, "n_sw");
-			testNeighbour(neighbours, world, fluid, x + 1, y + 0, z + 1, "n_se");
-			testNeighbour(neighbours, world, fluid, x + 1, y + 0, z - 1, "n_ne");
+			mask |= testNeighbour(world, fluid, x - 1, y + 0, z - 1, 14);
+			mask |= testNeighbour(world, fluid, x - 1, y + 0, z + 1, 15);
+			mask |= testNeighbour(world, fluid, x + 1, y + 0, z + 1, 16);
+			mask |= testNeighbour(world, fluid, x + 1, y + 0, z - 1, 17);
 
-			this.state = VariantModelState.create().withKeys(neighbours);
+			this.state = INTERNED_STATES.computeIfAbsent(mask, NeighbourMap::createState);
 		}
 	}
 
 	public VariantModelState getState() {
 		return this.state;
 	}
-}
\ No newline at end of file
+}
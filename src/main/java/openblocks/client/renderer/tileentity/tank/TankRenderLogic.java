@@ -64,35 +64,6 @@ public class TankRenderLogic {
 			bottomConnection.updateTopFluid(fluidStack);
 		}
 
-		private static boolean checkConsistency(RenderConnection connection, BlockPos pos, EnumFacing dir) {
-			return connection != null && connection.isPositionEqualTo(pos, dir);
-		}
-
-		private static boolean checkConsistency(RenderConnection connection, BlockPos pos, Diagonal dir) {
-			return connection != null && connection.isPositionEqualTo(pos, dir);
-		}
-
-		private boolean checkHorizontalConsistency(BlockPos pos, EnumFacing dir) {
-			return checkConsistency(horizontalConnections.get(dir), pos, dir);
-		}
-
-		private boolean checkDiagonalConsistency(BlockPos pos, Diagonal dir) {
-			return checkConsistency(diagonalConnections.get(dir), pos, dir);
-		}
-
-		public boolean checkConsistency(BlockPos pos) {
-			return checkConsistency(topConnection, pos, EnumFacing.UP) &&
-					checkConsistency(bottomConnection, pos, EnumFacing.DOWN) &&
-					checkHorizontalConsistency(pos, EnumFacing.NORTH) &&
-					checkHorizontalConsistency(pos, EnumFacing.SOUTH) &&
-					checkHorizontalConsistency(pos, EnumFacing.EAST) &&
-					checkHorizontalConsistency(pos, EnumFacing.WEST) &&
-					checkDiagonalConsistency(pos, Diagonal.NE) &&
-					checkDiagonalConsistency(pos, Diagonal.NW) &&
-					checkDiagonalConsistency(pos, Diagonal.SE) &&
-					checkDiagonalConsistency(pos, Diagonal.SW);
-		}
-
 		public void detach() {
 			for (Map.Entry<Diagonal, DiagonalConnection> e : diagonalConnections.entrySet())
 				e.getValue().clearFluid(e.getKey().getOpposite());
@@ -119,6 +90,8 @@ public class TankRenderLogic {
 
 		private final float phase;
 
+		private final LevelInterpolator level = new LevelInterpolator();
+
 		public TankRenderFluidData(TankConnections connections, GenericTank tank, float phase) {
 			this.connections = connections;
 			this.tank = tank;
@@ -160,7 +133,8 @@ public class TankRenderLogic {
 		@Override
 		public float getCenterFluidLevel(float time) {
 			final float raw = (float)tank.getFluidAmount() / tank.getCapacity();
-			return TankRenderUtils.calculateRenderHeight(time, phase, raw);
+			level.set(raw);
+			return TankRenderUtils.calculateRenderHeight(time, phase, level.get(time));
 		}
 
 		@Override
@@ -285,14 +259,11 @@ public class TankRenderLogic {
 			float phase = TankRenderUtils.calculatePhase(pos.getX(), pos.getY(), pos.getZ());
 			this.connections = updateConnections();
 			this.renderData = new TankRenderFluidData(connections, tank, phase);
+			// connections may be shared with neighbours, so they need to know about our contents
+			connections.updateFluid(tank.getFluid());
 		}
 	}
 
-	public void validateConnections(World world, BlockPos pos) {
-		if (world != this.world || connections == null || !connections.checkConsistency(pos))
-			initialize(world, pos);
-	}
-
 	public void invalidateConnections() {
 		if (this.connections != null) connections.detach();
 		this.connections = null;
@@ -0,0 +1,110 @@
+package openblocks.common;
+
+import static openmods.utils.CommandUtils.filterPrefixes;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Lists;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommand;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.SyntaxErrorException;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentTranslation;
+import net.minecraft.world.WorldServer;
+import openblocks.shapes.ShapeCache;
+
+public class CommandDebug implements ICommand {
+
+	private static final String COMMAND_TICKING = "ticking";
+
+	private static final String COMMAND_SCANS = "scans";
+
+	private static final String COMMAND_SYNCS = "syncs";
+
+	private static final String COMMAND_SHAPES = "shapes";
+
+	private static final String NAME = "ob_debug";
+
+	private static final List<String> SUB_COMMANDS = Lists.newArrayList(COMMAND_TICKING, COMMAND_SCANS, COMMAND_SYNCS, COMMAND_SHAPES);
+
+	@Override
+	public int compareTo(ICommand o) {
+		return NAME.compareTo(o.getName());
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public String getUsage(ICommandSender icommandsender) {
+		return NAME + " " + COMMAND_TICKING + "|" + COMMAND_SCANS + "|" + COMMAND_SYNCS + "|" + COMMAND_SHAPES;
+	}
+
+	@Override
+	public List<String> getAliases() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+		if (args.length != 1) throw new SyntaxErrorException();
+
+		final String subCommand = args[0];
+
+		if (subCommand.equalsIgnoreCase(COMMAND_TICKING)) {
+			for (WorldServer world : server.worlds) {
+				final int ticking = world.tickableTileEntities.size();
+				final int sleeping = TileSleepManager.instance.getSleepingCount(world);
+				sender.sendMessage(new TextComponentTranslation("openblocks.misc.debug_ticking",
+						world.provider.getDimension(), ticking, sleeping, ticking + sleeping));
+			}
+		} else if (subCommand.equalsIgnoreCase(COMMAND_SCANS)) {
+			final long ticks = Math.max(EntityScanScheduler.instance.getStatsTicks(), 1);
+			final Map<String, EntityScanScheduler.Stats> stats = EntityScanScheduler.instance.collectStats();
+			if (stats.isEmpty()) sender.sendMessage(new TextComponentTranslation("openblocks.misc.debug_no_scans"));
+
+			for (Map.Entry<String, EntityScanScheduler.Stats> e : stats.entrySet()) {
+				final EntityScanScheduler.Stats s = e.getValue();
+				final String msPerTick = String.format("%.4f", s.nanos / 1000000.0 / ticks);
+				sender.sendMessage(new TextComponentTranslation("openblocks.misc.debug_scans",
+						e.getKey(), s.scans, s.skipped, msPerTick, ticks));
+			}
+		} else if (subCommand.equalsIgnoreCase(COMMAND_SYNCS)) {
+			final long ticks = Math.max(MachineSyncTracker.instance.getStatsTicks(), 1);
+			final Map<String, MachineSyncTracker.Stats> stats = MachineSyncTracker.instance.collectStats();
+			for (Map.Entry<String, MachineSyncTracker.Stats> e : stats.entrySet()) {
+				final MachineSyncTracker.Stats s = e.getValue();
+				sender.sendMessage(new TextComponentTranslation("openblocks.misc.debug_syncs",
+						e.getKey(), s.syncs, s.checks, ticks));
+			}
+		} else if (subCommand.equalsIgnoreCase(COMMAND_SHAPES)) {
+			final CacheStats stats = ShapeCache.getStats();
+			final String hitRate = String.format("%.1f", stats.hitRate() * 100);
+			sender.sendMessage(new TextComponentTranslation("openblocks.misc.debug_shapes",
+					ShapeCache.getSize(), stats.hitCount(), stats.missCount(), hitRate, stats.evictionCount()));
+		} else throw new SyntaxErrorException();
+	}
+
+	@Override
+	public boolean checkPermission(MinecraftServer server, ICommandSender sender) {
+		return sender.canUseCommand(4, NAME);
+	}
+
+	@Override
+	public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, BlockPos pos) {
+		if (args.length == 1) return filterPrefixes(args[0], SUB_COMMANDS);
+		return Collections.emptyList();
+	}
+
+	@Override
+	public boolean isUsernameIndex(String[] args, int index) {
+		return false;
+	}
+
+}
@@ -0,0 +1,258 @@
+package openblocks.common;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import java.util.Map;
+import java.util.Set;
+import net.minecraft.entity.Entity;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.ClassInheritanceMultiMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraftforge.event.entity.EntityEvent;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import openblocks.Config;
+
+/**
+ * Decides when tiles looking for entities around them (vacuum hoppers, XP drains) should scan their area.
+ * Interval is doubled after every empty scan (up to {@link Config#collectorsMaxScanInterval}) and reset after successful one.
+ * Idle scanners are also woken when interesting entity is spawned or moves into chunk near them.
+ * Entities moving inside chunk don't fire events, so while any interesting entity is in watched area, interval is limited
+ * to {@link Config#collectorsNearbyScanInterval}.
+ */
+public class EntityScanScheduler {
+
+	// entities may stick out of their chunk, so area is slightly extended when looking for chunks to watch
+	private static final int CHUNK_MARGIN = 2;
+
+	public static class Stats {
+		public long scans;
+
+		public long skipped;
+
+		public long nanos;
+	}
+
+	public static class Schedule {
+		private final String type;
+
+		private final TileEntity owner;
+
+		private final int range;
+
+		private final Predicate<Entity> wakeFilter;
+
+		private World registeredWorld;
+
+		private long[] registeredChunks;
+
+		private int interval = 1;
+
+		private int countdown;
+
+		private Schedule(String type, TileEntity owner, int range, Predicate<Entity> wakeFilter) {
+			this.type = type;
+			this.owner = owner;
+			this.range = range;
+			this.wakeFilter = wakeFilter;
+		}
+
+		/**
+		 * Should be called every tick. If returns true, scan should be performed and result reported with {@link #scanFinished(boolean, long)}.
+		 */
+		public boolean shouldScan() {
+			if (!Config.collectorsAdaptiveScanning) return true;
+
+			if (registeredWorld == null) instance.register(this);
+
+			if (countdown > 0) {
+				countdown--;
+				if (!owner.getWorld().isRemote) instance.getStats(type).skipped++;
+				return false;
+			}
+
+			return true;
+		}
+
+		public void scanFinished(boolean foundTarget, long startNanos) {
+			if (foundTarget) {
+				interval = 1;
+			} else {
+				final int maxInterval = hasCandidatesNearby()? Config.collectorsNearbyScanInterval : Config.collectorsMaxScanInterval;
+				interval = Math.min(interval * 2, Math.max(maxInterval, 1));
+			}
+			countdown = interval - 1;
+
+			if (!owner.getWorld().isRemote) {
+				final Stats stats = instance.getStats(type);
+				stats.scans++;
+				stats.nanos += System.nanoTime() - startNanos;
+			}
+		}
+
+		private boolean hasCandidatesNearby() {
+			if (registeredChunks == null) return false;
+
+			final World world = owner.getWorld();
+			final int extent = range + CHUNK_MARGIN;
+			final int y = owner.getPos().getY();
+			for (long key : registeredChunks) {
+				final Chunk chunk = world.getChunkProvider().getLoadedChunk((int)key, (int)(key >> 32));
+				if (chunk == null) continue;
+
+				final ClassInheritanceMultiMap<Entity>[] entityLists = chunk.getEntityLists();
+				final int minSection = MathHelper.clamp((y - extent) >> 4, 0, entityLists.length - 1);
+				final int maxSection = MathHelper.clamp((y + extent) >> 4, 0, entityLists.length - 1);
+				for (int section = minSection; section <= maxSection; section++)
+					for (Entity entity : entityLists[section])
+						if (wakeFilter.apply(entity)) return true;
+			}
+
+			return false;
+		}
+
+		/**
+		 * Forces scan in next tick (for example, after state change that makes previously ignored entities interesting).
+		 */
+		public void wake() {
+			interval = 1;
+			countdown = 0;
+		}
+
+		public void unregister() {
+			if (registeredWorld != null) instance.unregister(this);
+		}
+	}
+
+	public static final EntityScanScheduler instance = new EntityScanScheduler();
+
+	// per-world maps are only used by thread owning world
+	private final Map<World, TLongObjectMap<Set<Schedule>>> watchedChunks = new MapMaker().weakKeys().makeMap();
+
+	// server side only
+	private final Map<String, Stats> stats = Maps.newTreeMap();
+
+	private long statsTicks;
+
+	private EntityScanScheduler() {}
+
+	public Schedule createSchedule(String type, TileEntity owner, int range, Predicate<Entity> wakeFilter) {
+		return new Schedule(type, owner, range, wakeFilter);
+	}
+
+	private Stats getStats(String type) {
+		Stats result = stats.get(type);
+		if (result == null) {
+			result = new Stats();
+			stats.put(type, result);
+		}
+		return result;
+	}
+
+	private void register(Schedule schedule) {
+		final World world = schedule.owner.getWorld();
+		TLongObjectMap<Set<Schedule>> chunks = watchedChunks.get(world);
+		if (chunks == null) {
+			chunks = new TLongObjectHashMap<>();
+			watchedChunks.put(world, chunks);
+		}
+
+		final BlockPos pos = schedule.owner.getPos();
+		final int extent = schedule.range + CHUNK_MARGIN;
+		final int minChunkX = (pos.getX() - extent) >> 4;
+		final int maxChunkX = (pos.getX() + extent) >> 4;
+		final int minChunkZ = (pos.getZ() - extent) >> 4;
+		final int maxChunkZ = (pos.getZ() + extent) >> 4;
+
+		final long[] keys = new long[(maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1)];
+		int i = 0;
+		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++)
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+				final long key = ChunkPos.asLong(chunkX, chunkZ);
+				Set<Schedule> schedules = chunks.get(key);
+				if (schedules == null) {
+					schedules = Sets.newHashSet();
+					chunks.put(key, schedules);
+				}
+				schedules.add(schedule);
+				keys[i++] = key;
+			}
+
+		schedule.registeredWorld = world;
+		schedule.registeredChunks = keys;
+	}
+
+	private void unregister(Schedule schedule) {
+		final TLongObjectMap<Set<Schedule>> chunks = watchedChunks.get(schedule.registeredWorld);
+		if (chunks != null) {
+			for (long key : schedule.registeredChunks) {
+				final Set<Schedule> schedules = chunks.get(key);
+				if (schedules != null) {
+					schedules.remove(schedule);
+					if (schedules.isEmpty()) chunks.remove(key);
+				}
+			}
+		}
+
+		schedule.registeredWorld = null;
+		schedule.registeredChunks = null;
+	}
+
+	private void wakeScanners(World world, Entity entity, int chunkX, int chunkZ) {
+		final TLongObjectMap<Set<Schedule>> chunks = watchedChunks.get(world);
+		if (chunks == null) return;
+
+		final Set<Schedule> schedules = chunks.get(ChunkPos.asLong(chunkX, chunkZ));
+		if (schedules == null) return;
+
+		for (Schedule schedule : schedules)
+			if (schedule.wakeFilter.apply(entity)) schedule.wake();
+	}
+
+	@SubscribeEvent
+	public void onEntityJoin(EntityJoinWorldEvent evt) {
+		final Entity entity = evt.getEntity();
+		wakeScanners(evt.getWorld(), entity, MathHelper.floor(entity.posX) >> 4, MathHelper.floor(entity.posZ) >> 4);
+	}
+
+	@SubscribeEvent
+	public void onEntityEnteringChunk(EntityEvent.EnteringChunk evt) {
+		final Entity entity = evt.getEntity();
+		wakeScanners(entity.world, entity, evt.getNewChunkX(), evt.getNewChunkZ());
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload evt) {
+		watchedChunks.remove(evt.getWorld());
+	}
+
+	@SubscribeEvent
+	public void onServerTick(TickEvent.ServerTickEvent evt) {
+		if (evt.phase == Phase.END) statsTicks++;
+	}
+
+	/**
+	 * Returns scan statistics (per scanner type) collected since last call and starts new measurement period.
+	 */
+	public Map<String, Stats> collectStats() {
+		final Map<String, Stats> result = Maps.newTreeMap(stats);
+		stats.clear();
+		statsTicks = 0;
+		return result;
+	}
+
+	public long getStatsTicks() {
+		return statsTicks;
+	}
+}
@@ -0,0 +1,222 @@
+package openblocks.common;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import gnu.trove.iterator.TLongIntIterator;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.network.play.server.SPacketChunkData;
+import net.minecraft.server.management.PlayerChunkMapEntry;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.text.TextComponentTranslation;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import openblocks.Config;
+import openblocks.shapes.CoordShape;
+
+/**
+ * Spreads large block fills (like creative mode of builder guide) over multiple ticks.
+ * Blocks are placed section by section without individual client updates, every modified chunk is resent once at end of tick.
+ */
+public class FillJobQueue {
+
+	public static final FillJobQueue instance = new FillJobQueue();
+
+	// section coordinates are offset to be always positive
+	private static final int SECTION_OFFSET = 1 << 21;
+
+	private static final int FLAGS_NOTIFY_NEIGHBOURS = 1;
+
+	private static final int PROGRESS_REPORT_PERIOD = 20;
+
+	public static class Job {
+		private final WorldServer world;
+
+		private final EntityPlayerMP player;
+
+		private final Function<BlockPos, IBlockState> stateProvider;
+
+		private final long[] positions;
+
+		private int next;
+
+		private boolean cancelled;
+
+		private int ticks;
+
+		private Job(WorldServer world, EntityPlayerMP player, long[] positions, Function<BlockPos, IBlockState> stateProvider) {
+			this.world = world;
+			this.player = player;
+			this.positions = positions;
+			this.stateProvider = stateProvider;
+		}
+
+		public void cancel() {
+			cancelled = true;
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		public boolean isFinished() {
+			return next >= positions.length;
+		}
+
+		public int getPlaced() {
+			return next;
+		}
+
+		public int getTotal() {
+			return positions.length;
+		}
+
+		public float getProgress() {
+			return positions.length > 0? (float)next / positions.length : 1;
+		}
+
+		private boolean isDone() {
+			return cancelled || isFinished() || player.hasDisconnected();
+		}
+
+		private void reportProgress() {
+			if (!player.hasDisconnected()) player.sendStatusMessage(new TextComponentTranslation("openblocks.misc.fill_progress", getPlaced(), getTotal()), true);
+		}
+
+		private void reportEnd() {
+			if (player.hasDisconnected()) return;
+
+			if (cancelled) player.sendStatusMessage(new TextComponentTranslation("openblocks.misc.fill_cancelled", getPlaced(), getTotal()), true);
+			else player.sendStatusMessage(new TextComponentTranslation("openblocks.misc.fill_finished", getTotal()), true);
+		}
+	}
+
+	private final List<Job> jobs = Lists.newArrayList();
+
+	private static long encodeSectionOrdered(int x, int y, int z) {
+		final long sectionX = (x >> 4) + SECTION_OFFSET;
+		final long sectionZ = (z >> 4) + SECTION_OFFSET;
+		final long sectionY = y >> 4;
+		return (sectionX << 38) | (sectionZ << 16) | (sectionY << 12) | ((x & 0xF) << 8) | ((z & 0xF) << 4) | (y & 0xF);
+	}
+
+	private static int decodeX(long v) {
+		return (int)(((v >>> 38) - SECTION_OFFSET) << 4) | (int)((v >>> 8) & 0xF);
+	}
+
+	private static int decodeY(long v) {
+		return (int)(((v >>> 12) & 0xF) << 4) | (int)(v & 0xF);
+	}
+
+	private static int decodeZ(long v) {
+		return (int)((((v >>> 16) & 0x3FFFFF) - SECTION_OFFSET) << 4) | (int)((v >>> 4) & 0xF);
+	}
+
+	/**
+	 * Queues placement of blocks for every point of shape (relative to origin). Positions outside world height are skipped.
+	 */
+	public Job submit(WorldServer world, EntityPlayerMP player, BlockPos origin, CoordShape shape, Function<BlockPos, IBlockState> stateProvider) {
+		Preconditions.checkNotNull(world);
+
+		final int size = shape.size();
+		final long[] positions = new long[size];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			final int y = origin.getY() + shape.getY(i);
+			if (y >= 0 && y < 256) positions[count++] = encodeSectionOrdered(origin.getX() + shape.getX(i), y, origin.getZ() + shape.getZ(i));
+		}
+
+		// keeps positions from single section together
+		Arrays.sort(positions, 0, count);
+
+		final Job job = new Job(world, player, Arrays.copyOf(positions, count), stateProvider);
+		jobs.add(job);
+		return job;
+	}
+
+	@SubscribeEvent
+	public void onServerTick(TickEvent.ServerTickEvent evt) {
+		if (evt.phase != Phase.END || jobs.isEmpty()) return;
+
+		final long deadline = System.nanoTime() + Config.guideFillTimePerTick * 1000000L;
+		int budget = Config.guideFillBlocksPerTick;
+
+		final Iterator<Job> it = jobs.iterator();
+		while (it.hasNext()) {
+			final Job job = it.next();
+			if (budget > 0 && System.nanoTime() < deadline && !job.isDone()) budget -= runJob(job, budget, deadline);
+
+			if (job.isDone()) {
+				it.remove();
+				job.reportEnd();
+			} else if (job.ticks++ % PROGRESS_REPORT_PERIOD == 0) {
+				job.reportProgress();
+			}
+		}
+	}
+
+	private static int runJob(Job job, int budget, long deadline) {
+		final WorldServer world = job.world;
+		final TLongIntMap changedSections = new TLongIntHashMap();
+
+		int processed = 0;
+		while (processed < budget && !job.isFinished()) {
+			final long v = job.positions[job.next++];
+			final BlockPos blockPos = new BlockPos(decodeX(v), decodeY(v), decodeZ(v));
+			processed++;
+			// never force-load chunks (also by neighbour updates), positions near unloaded ones are skipped
+			if (!world.isAreaLoaded(blockPos, 1)) continue;
+
+			final IBlockState state = job.stateProvider.apply(blockPos);
+			world.setBlockState(blockPos, state, FLAGS_NOTIFY_NEIGHBOURS);
+
+			final long chunkKey = ChunkPos.asLong(blockPos.getX() >> 4, blockPos.getZ() >> 4);
+			changedSections.put(chunkKey, changedSections.get(chunkKey) | (1 << (blockPos.getY() >> 4)));
+
+			// nanoTime is not free, so check only once in a while
+			if ((processed & 0xF) == 0 && System.nanoTime() > deadline) break;
+		}
+
+		resendChunks(world, changedSections);
+		return processed;
+	}
+
+	private static void resendChunks(WorldServer world, TLongIntMap changedSections) {
+		final TLongIntIterator it = changedSections.iterator();
+		while (it.hasNext()) {
+			it.advance();
+			final long chunkKey = it.key();
+			final int chunkX = (int)chunkKey;
+			final int chunkZ = (int)(chunkKey >> 32);
+
+			final PlayerChunkMapEntry entry = world.getPlayerChunkMap().getEntry(chunkX, chunkZ);
+			if (entry != null && entry.isSentToPlayers()) {
+				final Chunk chunk = world.getChunkFromChunkCoords(chunkX, chunkZ);
+				entry.sendPacket(new SPacketChunkData(chunk, it.value()));
+			}
+		}
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload evt) {
+		final Iterator<Job> it = jobs.iterator();
+		while (it.hasNext()) {
+			final Job job = it.next();
+			if (job.world == evt.getWorld()) {
+				job.cancel();
+				it.remove();
+			}
+		}
+	}
+}
@@ -1,8 +1,11 @@
 package openblocks.common;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import net.minecraftforge.fluids.Fluid;
 import net.minecraftforge.fluids.FluidRegistry;
@@ -55,7 +58,7 @@ public class FluidXpUtils {
 		}
 	}
 
-	private static class ConversionEntry {
+	static class ConversionEntry {
 		private final FluidStack fluid;
 		private final IFluidXpConverter converter;
 		private final Optional<IFluidXpConverter> optionalConverter;
@@ -72,12 +75,52 @@ public class FluidXpUtils {
 
 	}
 
+	/**
+	 * Immutable set of conversions, first entry wins. Fluids are matched by registry name: stacks always resolve to current default fluid
+	 * for name (which may come from other mod), so this gives same results as {@link FluidStack#isFluidEqual(FluidStack)}.
+	 */
+	static class ConverterTable {
+		private final List<ConversionEntry> entries;
+
+		// not modified after construction, so can be read by client and server threads
+		private final Map<String, Optional<IFluidXpConverter>> byName = Maps.newHashMap();
+
+		public ConverterTable(List<ConversionEntry> entries) {
+			this.entries = ImmutableList.copyOf(entries);
+			for (ConversionEntry e : entries)
+				byName.putIfAbsent(e.fluid.getFluid().getName(), e.optionalConverter);
+		}
+
+		public Optional<IFluidXpConverter> get(FluidStack stack) {
+			// entries never have tag
+			if (stack.tag != null) return Optional.empty();
+			final Fluid fluid = stack.getFluid();
+			if (fluid == null) return Optional.empty();
+			return byName.getOrDefault(fluid.getName(), Optional.empty());
+		}
+
+		/**
+		 * Linear search, as done before lookup map was introduced. Kept for comparison in benchmarks.
+		 */
+		public Optional<IFluidXpConverter> scan(FluidStack stack) {
+			for (ConversionEntry e : entries)
+				if (e.matches(stack)) return e.optionalConverter;
+
+			return Optional.empty();
+		}
+
+		public List<ConversionEntry> getEntries() {
+			return entries;
+		}
+	}
+
 	public static final IFluidXpConverter xpJuiceConverter = new XpJuice();
 
-	private static final List<ConversionEntry> converters = Lists.newArrayList();
+	private static volatile ConverterTable converters = new ConverterTable(ImmutableList.of());
 
 	public static void initializeFromConfig() {
-		converters.add(new ConversionEntry(new FluidStack(OpenBlocks.Fluids.xpJuice, 1000), xpJuiceConverter));
+		final List<ConversionEntry> entries = Lists.newArrayList();
+		entries.add(new ConversionEntry(new FluidStack(OpenBlocks.Fluids.xpJuice, 1000), xpJuiceConverter));
 
 		for (String entry : Config.additionalXpFluids) {
 			final String[] fields = entry.split(":");
@@ -102,14 +145,17 @@ public class FluidXpUtils {
 				continue;
 			}
 
-			converters.add(new ConversionEntry(new FluidStack(fluid, 1000), new Linear(xpToFluid)));
+			entries.add(new ConversionEntry(new FluidStack(fluid, 1000), new Linear(xpToFluid)));
 		}
+
+		converters = new ConverterTable(entries);
 	}
 
 	public static FluidStack[] getAcceptedFluids() {
-		final FluidStack[] result = new FluidStack[converters.size()];
+		final List<ConversionEntry> entries = converters.getEntries();
+		final FluidStack[] result = new FluidStack[entries.size()];
 		int i = 0;
-		for (ConversionEntry e : converters) {
+		for (ConversionEntry e : entries) {
 			result[i++] = e.fluid.copy();
 		}
 
@@ -118,12 +164,7 @@ public class FluidXpUtils {
 
 	public static Optional<IFluidXpConverter> getConverter(FluidStack stack) {
 		if (stack == null) return Optional.empty();
-
-		for (ConversionEntry e : converters) {
-			if (e.matches(stack)) return e.optionalConverter;
-		}
-
-		return Optional.empty();
+		return converters.get(stack);
 	}
 
 	public static int getMaxPossibleFluidForLevel(int level) {
@@ -133,7 +174,7 @@ public class FluidXpUtils {
 
 	public static int getMaxPossibleFluidForXp(final int xp) {
 		int result = 0;
-		for (ConversionEntry e : converters) {
+		for (ConversionEntry e : converters.getEntries()) {
 			result = Math.max(result, e.converter.xpToFluid(xp));
 		}
 
@@ -0,0 +1,96 @@
+package openblocks.common;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import openblocks.common.HeightMapData.LayerData;
+
+/**
+ * Compact encoding of single map layer. Heights are replaced with differences to left neighbour (or upper one, for first column),
+ * so smooth terrain becomes long runs of small values. Result (followed by colors) is compressed with deflate, which takes care of
+ * both runs and small set of used values. If compression does not help (noise), layer is stored raw.
+ */
+class HeightMapCodec {
+
+	private static final byte METHOD_RAW = 0;
+
+	private static final byte METHOD_DEFLATE = 1;
+
+	private static final int PIXELS = HeightMapData.SIZE * HeightMapData.SIZE;
+
+	private static final int RAW_SIZE = 2 * PIXELS;
+
+	static byte[] encode(LayerData layer) {
+		final byte[] filtered = new byte[RAW_SIZE];
+		final byte[] heights = layer.heightMap;
+		for (int i = 0; i < PIXELS; i++)
+			filtered[i] = (byte)(heights[i] - predict(heights, i));
+		System.arraycopy(layer.colorMap, 0, filtered, PIXELS, PIXELS);
+
+		final Deflater deflater = new Deflater();
+		try {
+			deflater.setInput(filtered);
+			deflater.finish();
+
+			final ByteArrayOutputStream output = new ByteArrayOutputStream(RAW_SIZE / 4);
+			output.write(METHOD_DEFLATE);
+			final byte[] buffer = new byte[1024];
+			while (!deflater.finished()) {
+				final int count = deflater.deflate(buffer);
+				output.write(buffer, 0, count);
+			}
+
+			if (output.size() < RAW_SIZE + 1) return output.toByteArray();
+		} finally {
+			deflater.end();
+		}
+
+		final byte[] result = new byte[RAW_SIZE + 1];
+		result[0] = METHOD_RAW;
+		System.arraycopy(layer.heightMap, 0, result, 1, PIXELS);
+		System.arraycopy(layer.colorMap, 0, result, 1 + PIXELS, PIXELS);
+		return result;
+	}
+
+	static void decode(byte[] data, LayerData layer) throws DataFormatException {
+		if (data.length == 0) throw new DataFormatException("Empty layer data");
+
+		switch (data[0]) {
+			case METHOD_RAW:
+				if (data.length != RAW_SIZE + 1) throw new DataFormatException("Invalid raw layer size: " + data.length);
+				System.arraycopy(data, 1, layer.heightMap, 0, PIXELS);
+				System.arraycopy(data, 1 + PIXELS, layer.colorMap, 0, PIXELS);
+				break;
+			case METHOD_DEFLATE: {
+				final byte[] filtered = new byte[RAW_SIZE];
+				final Inflater inflater = new Inflater();
+				try {
+					inflater.setInput(data, 1, data.length - 1);
+					int size = 0;
+					while (size < RAW_SIZE && !inflater.finished()) {
+						final int count = inflater.inflate(filtered, size, RAW_SIZE - size);
+						if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+						size += count;
+					}
+					if (size != RAW_SIZE || !inflater.finished()) throw new DataFormatException("Invalid compressed layer size");
+				} finally {
+					inflater.end();
+				}
+
+				final byte[] heights = layer.heightMap;
+				for (int i = 0; i < PIXELS; i++)
+					heights[i] = (byte)(filtered[i] + predict(heights, i));
+				System.arraycopy(filtered, PIXELS, layer.colorMap, 0, PIXELS);
+				break;
+			}
+			default:
+				throw new DataFormatException("Unknown layer encoding: " + data[0]);
+		}
+	}
+
+	private static int predict(byte[] heights, int index) {
+		if (index == 0) return 0;
+		return (index % HeightMapData.SIZE) != 0? heights[index - 1] : heights[index - HeightMapData.SIZE];
+	}
+}
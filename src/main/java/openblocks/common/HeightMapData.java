@@ -1,40 +1,104 @@
 package openblocks.common;
 
+import java.util.zip.DataFormatException;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.world.storage.WorldSavedData;
+import openmods.Log;
 
 public class HeightMapData extends WorldSavedData {
 
+	/**
+	 * Version of NBT format. 0 - raw layer arrays, 1 - layers encoded with {@link HeightMapCodec}.
+	 * Network format is not versioned, since client and server always run same mod version.
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	public static final int SIZE = 64;
+
+	/**
+	 * Maps are split into square tiles for partial updates. Tile index is row-major, so tile set fits into 16 bit mask.
+	 */
+	public static final int TILE_SIZE = 16;
+
+	public static final int TILES_PER_ROW = SIZE / TILE_SIZE;
+
+	public static final int TILE_COUNT = TILES_PER_ROW * TILES_PER_ROW;
+
+	public static final int ALL_TILES = (1 << TILE_COUNT) - 1;
+
 	public static class LayerData {
 		public byte alpha;
-		public byte[] heightMap = new byte[64 * 64];
-		public byte[] colorMap = new byte[64 * 64];
+		public byte[] heightMap = new byte[SIZE * SIZE];
+		public byte[] colorMap = new byte[SIZE * SIZE];
 
 		public void readFromNBT(NBTTagCompound tag) {
 			alpha = tag.getByte("Alpha");
-			heightMap = tag.getByteArray("Height");
-			colorMap = tag.getByteArray("Color");
+			if (tag.hasKey("Data")) {
+				decode(tag.getByteArray("Data"));
+			} else {
+				// format used before version 1
+				heightMap = tag.getByteArray("Height");
+				colorMap = tag.getByteArray("Color");
+			}
 		}
 
 		public void writeToNBT(NBTTagCompound tag) {
 			tag.setByte("Alpha", alpha);
-			tag.setByteArray("Height", heightMap);
-			tag.setByteArray("Color", colorMap);
+			tag.setByteArray("Data", HeightMapCodec.encode(this));
 		}
 
 		public void readFromStream(PacketBuffer input) {
 			alpha = input.readByte();
-			input.readBytes(heightMap);
-			input.readBytes(colorMap);
+			decode(input.readByteArray());
 		}
 
 		public void writeToStream(PacketBuffer output) {
 			output.writeByte(alpha);
-			output.writeBytes(heightMap);
-			output.writeBytes(colorMap);
+			output.writeByteArray(HeightMapCodec.encode(this));
+		}
+
+		private void decode(byte[] data) {
+			try {
+				HeightMapCodec.decode(data, this);
+			} catch (DataFormatException e) {
+				Log.warn(e, "Corrupted map layer data, layer cleared");
+				heightMap = new byte[SIZE * SIZE];
+				colorMap = new byte[SIZE * SIZE];
+			}
 		}
+
+		private static int tileStart(int tile) {
+			return (tile / TILES_PER_ROW) * TILE_SIZE * SIZE + (tile % TILES_PER_ROW) * TILE_SIZE;
+		}
+
+		public void readTileFromStream(PacketBuffer input, int tile) {
+			final int start = tileStart(tile);
+			for (int row = 0; row < TILE_SIZE; row++)
+				input.readBytes(heightMap, start + row * SIZE, TILE_SIZE);
+			for (int row = 0; row < TILE_SIZE; row++)
+				input.readBytes(colorMap, start + row * SIZE, TILE_SIZE);
+		}
+
+		public void writeTileToStream(PacketBuffer output, int tile) {
+			final int start = tileStart(tile);
+			for (int row = 0; row < TILE_SIZE; row++)
+				output.writeBytes(heightMap, start + row * SIZE, TILE_SIZE);
+			for (int row = 0; row < TILE_SIZE; row++)
+				output.writeBytes(colorMap, start + row * SIZE, TILE_SIZE);
+		}
+	}
+
+	/**
+	 * Returns mask of tiles covering given (inclusive) pixel area.
+	 */
+	public static int getTileMask(int minX, int minY, int maxX, int maxY) {
+		int result = 0;
+		for (int tileY = minY / TILE_SIZE; tileY <= maxY / TILE_SIZE; tileY++)
+			for (int tileX = minX / TILE_SIZE; tileX <= maxX / TILE_SIZE; tileX++)
+				result |= 1 << (tileY * TILES_PER_ROW + tileX);
+		return result;
 	}
 
 	public final static HeightMapData INVALID = new HeightMapData(-1, false) {
@@ -91,6 +155,7 @@ public class HeightMapData extends WorldSavedData {
 
 	@Override
 	public void readFromNBT(NBTTagCompound tag) {
+		// layers are self-describing, so version is not needed (yet) for reading
 		dimension = tag.getInteger("Dimension");
 
 		centerX = tag.getInteger("CenterX");
@@ -111,6 +176,7 @@ public class HeightMapData extends WorldSavedData {
 
 	@Override
 	public NBTTagCompound writeToNBT(NBTTagCompound tag) {
+		tag.setInteger("Version", FORMAT_VERSION);
 		tag.setInteger("Dimension", dimension);
 
 		tag.setInteger("CenterX", centerX);
@@ -0,0 +1,354 @@
+package openblocks.common;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import openmods.Log;
+
+/**
+ * Server side storage of height maps. Instead of one file per map, maps are packed into region files (1024 maps each),
+ * which start with table of offsets and lengths of entries. Maps are loaded on first access and kept in soft cache,
+ * so only maps that are still referenced (or changed, but not yet flushed) stay in memory.
+ * Dirty maps are serialized on server thread, but all affected regions are written by single background task.
+ * Region files are always rewritten to temporary file and then moved, so crash during write can't corrupt existing data.
+ */
+public class HeightMapStorage {
+
+	private static final int MAGIC = 0x4F42484D; // OBHM
+
+	private static final int VERSION = 1;
+
+	private static final int REGION_BITS = 10;
+
+	private static final int REGION_SIZE = 1 << REGION_BITS;
+
+	private static final int HEADER_SIZE = 8 + 8 * REGION_SIZE;
+
+	private static final Pattern LEGACY_FILE = Pattern.compile("height_map_(\\d+)\\.dat");
+
+	private final File dataDir;
+
+	private final File regionDir;
+
+	// guards replacing of region files, since they are written by background thread
+	private final Object fileLock = new Object();
+
+	private final Cache<Integer, HeightMapData> loaded = CacheBuilder.newBuilder().softValues().build();
+
+	// changed since last flush, must not be evicted
+	private final TIntObjectMap<HeightMapData> dirty = new TIntObjectHashMap<>();
+
+	// serialized, but not yet written. Read before region files, so evicted map is never reloaded from stale entry
+	private final ConcurrentMap<Integer, byte[]> pending = Maps.newConcurrentMap();
+
+	private final TIntSet missing = new TIntHashSet();
+
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+			.setNameFormat("OpenBlocks height map writer")
+			.setDaemon(true)
+			.build());
+
+	/**
+	 * Should be created when world is loaded, since it imports old map files synchronously.
+	 *
+	 * @param dataDir world 'data' directory (where vanilla keeps its WorldSavedData files)
+	 */
+	public HeightMapStorage(File dataDir) {
+		this.dataDir = dataDir;
+		this.regionDir = new File(dataDir, "height_maps");
+		migrateLegacyFiles();
+	}
+
+	private File getRegionFile(int region) {
+		return new File(regionDir, "region_" + region + ".dat");
+	}
+
+	public HeightMapData get(int mapId) {
+		HeightMapData result = loaded.getIfPresent(mapId);
+		if (result != null || missing.contains(mapId)) return result;
+
+		final NBTTagCompound tag = readEntry(mapId);
+		if (tag == null) {
+			missing.add(mapId);
+			return null;
+		}
+
+		result = new HeightMapData(mapId, false);
+		result.readFromNBT(tag);
+		loaded.put(mapId, result);
+		return result;
+	}
+
+	public void put(int mapId, HeightMapData data) {
+		loaded.put(mapId, data);
+		missing.remove(mapId);
+		markDirty(mapId, data);
+	}
+
+	/**
+	 * Marks map as changed. It will be kept in memory until next {@link #flush()}.
+	 */
+	public void markDirty(int mapId, HeightMapData data) {
+		data.markDirty();
+		dirty.put(mapId, data);
+	}
+
+	private NBTTagCompound readEntry(int mapId) {
+		byte[] entry = pending.get(mapId);
+		if (entry == null) entry = readRegionEntry(mapId);
+		if (entry == null) return null;
+
+		try {
+			return CompressedStreamTools.read(new DataInputStream(new ByteArrayInputStream(entry)));
+		} catch (IOException e) {
+			Log.warn(e, "Failed to read height map %d", mapId);
+			return null;
+		}
+	}
+
+	private byte[] readRegionEntry(int mapId) {
+		final File file = getRegionFile(mapId >> REGION_BITS);
+		final int index = mapId & (REGION_SIZE - 1);
+
+		synchronized (fileLock) {
+			if (!file.isFile()) return null;
+
+			try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+				if (input.readInt() != MAGIC) throw new IOException("Invalid file header");
+				final int version = input.readInt();
+				if (version != VERSION) throw new IOException("Unsupported version: " + version);
+
+				input.seek(8 + 8 * index);
+				final int offset = input.readInt();
+				final int length = input.readInt();
+				if (offset == 0) return null;
+
+				final byte[] entry = new byte[length];
+				input.seek(offset);
+				input.readFully(entry);
+				return entry;
+			} catch (IOException e) {
+				Log.warn(e, "Failed to read height map %d from %s", mapId, file);
+				return null;
+			}
+		}
+	}
+
+	private static byte[] serialize(HeightMapData data) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CompressedStreamTools.write(data.writeToNBT(new NBTTagCompound()), new DataOutputStream(bytes));
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Serializes all dirty maps and schedules write of their regions.
+	 */
+	public void flush() {
+		final TIntObjectMap<TIntObjectMap<byte[]>> regions = new TIntObjectHashMap<>();
+		dirty.forEachEntry((mapId, data) -> {
+			final byte[] entry;
+			try {
+				entry = serialize(data);
+			} catch (IOException e) {
+				Log.warn(e, "Failed to serialize height map %d", mapId);
+				return true;
+			}
+
+			data.setDirty(false);
+			pending.put(mapId, entry);
+			final int region = mapId >> REGION_BITS;
+			TIntObjectMap<byte[]> regionEntries = regions.get(region);
+			if (regionEntries == null) {
+				regionEntries = new TIntObjectHashMap<>();
+				regions.put(region, regionEntries);
+			}
+			regionEntries.put(mapId & (REGION_SIZE - 1), entry);
+			return true;
+		});
+		// failed ones stay pinned for next attempt
+		dirty.retainEntries((mapId, data) -> data.isDirty());
+
+		if (!regions.isEmpty()) writer.execute(() -> regions.forEachEntry((region, entries) -> {
+			if (writeRegion(region, entries, true)) {
+				final int base = region << REGION_BITS;
+				// newer version may be queued in meantime
+				entries.forEachEntry((index, entry) -> pending.remove(base | index, entry));
+			}
+			return true;
+		}));
+	}
+
+	/**
+	 * Flushes all dirty maps and waits until they are written.
+	 */
+	public void close() {
+		flush();
+		writer.shutdown();
+		try {
+			if (!writer.awaitTermination(1, TimeUnit.MINUTES)) Log.warn("Height map writer did not finish in time");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Merges entries into region file. Only this method replaces region files and it's never called concurrently
+	 * (import runs before writer gets any task), so existing file can be read without lock.
+	 *
+	 * @param replace if false, entries already present in file are kept
+	 */
+	private boolean writeRegion(int region, TIntObjectMap<byte[]> updates, boolean replace) {
+		final File file = getRegionFile(region);
+		try {
+			final byte[][] entries = new byte[REGION_SIZE][];
+			if (file.isFile()) readAllEntries(file, entries);
+
+			updates.forEachEntry((index, entry) -> {
+				if (replace || entries[index] == null) entries[index] = entry;
+				return true;
+			});
+
+			regionDir.mkdirs();
+			final File tmpFile = new File(regionDir, file.getName() + ".tmp");
+			try (DataOutputStream output = new DataOutputStream(new FileOutputStream(tmpFile))) {
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+
+				int offset = HEADER_SIZE;
+				for (byte[] entry : entries) {
+					if (entry != null) {
+						output.writeInt(offset);
+						output.writeInt(entry.length);
+						offset += entry.length;
+					} else {
+						output.writeInt(0);
+						output.writeInt(0);
+					}
+				}
+
+				for (byte[] entry : entries)
+					if (entry != null) output.write(entry);
+			}
+
+			synchronized (fileLock) {
+				Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			return true;
+		} catch (IOException e) {
+			Log.warn(e, "Failed to write height map region %s", file);
+			return false;
+		}
+	}
+
+	private static void readAllEntries(File file, byte[][] entries) throws IOException {
+		try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+			if (input.readInt() != MAGIC) throw new IOException("Invalid file header");
+			final int version = input.readInt();
+			if (version != VERSION) throw new IOException("Unsupported version: " + version);
+
+			final int[] offsets = new int[REGION_SIZE];
+			final int[] lengths = new int[REGION_SIZE];
+			for (int i = 0; i < REGION_SIZE; i++) {
+				offsets[i] = input.readInt();
+				lengths[i] = input.readInt();
+			}
+
+			for (int i = 0; i < REGION_SIZE; i++) {
+				if (offsets[i] != 0) {
+					final byte[] entry = new byte[lengths[i]];
+					input.seek(offsets[i]);
+					input.readFully(entry);
+					entries[i] = entry;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Imports maps from old 'height_map_N.dat' files, one region at time, without loading them into cache.
+	 * Imported files are moved to 'height_maps/legacy' after their region is written.
+	 */
+	private void migrateLegacyFiles() {
+		final File[] files = dataDir.listFiles((dir, name) -> LEGACY_FILE.matcher(name).matches());
+		if (files == null || files.length == 0) return;
+
+		final TIntObjectMap<TIntObjectMap<File>> regions = new TIntObjectHashMap<>();
+		for (File file : files) {
+			final Matcher matcher = LEGACY_FILE.matcher(file.getName());
+			if (!matcher.matches()) continue;
+
+			final int mapId;
+			try {
+				mapId = Integer.parseInt(matcher.group(1));
+			} catch (NumberFormatException e) {
+				continue;
+			}
+
+			final int region = mapId >> REGION_BITS;
+			TIntObjectMap<File> regionFiles = regions.get(region);
+			if (regionFiles == null) {
+				regionFiles = new TIntObjectHashMap<>();
+				regions.put(region, regionFiles);
+			}
+			regionFiles.put(mapId & (REGION_SIZE - 1), file);
+		}
+
+		final File legacyDir = new File(regionDir, "legacy");
+		final int[] importedCount = { 0 };
+		regions.forEachEntry((region, regionFiles) -> {
+			final TIntObjectMap<byte[]> entries = new TIntObjectHashMap<>();
+			final List<File> imported = Lists.newArrayList();
+			regionFiles.forEachEntry((index, file) -> {
+				try (InputStream input = new FileInputStream(file)) {
+					final NBTTagCompound tag = CompressedStreamTools.readCompressed(input);
+					// converted to current layer format
+					final HeightMapData data = new HeightMapData((region << REGION_BITS) | index, false);
+					data.readFromNBT(tag.getCompoundTag("data"));
+					entries.put(index, serialize(data));
+					imported.add(file);
+				} catch (IOException e) {
+					Log.warn(e, "Failed to import height map from %s", file);
+				}
+				return true;
+			});
+
+			// existing region entry is newer than leftover file. On failure old files stay in place, so import is retried on next start
+			if (!entries.isEmpty() && writeRegion(region, entries, false)) {
+				legacyDir.mkdirs();
+				for (File file : imported)
+					if (!file.renameTo(new File(legacyDir, file.getName()))) Log.warn("Failed to move imported height map file %s", file);
+				importedCount[0] += imported.size();
+			}
+			return true;
+		});
+
+		Log.info("Imported %d height maps into region files", importedCount[0]);
+	}
+}
@@ -0,0 +1,113 @@
+package openblocks.common;
+
+import com.google.common.collect.Maps;
+import java.util.Map;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import openmods.sync.ISyncableObject;
+
+/**
+ * Decides when ticking machines should call sync: only if one of tracked objects is dirty (or change was reported explicitly)
+ * and not more often than once per given period. Pending changes are not lost - they are sent after period passes.
+ * Keeps per-machine type counters, displayed by '/ob_debug syncs'. Server side only.
+ */
+public class MachineSyncTracker {
+
+	public static class Stats {
+		public long checks;
+
+		public long syncs;
+	}
+
+	public static class Tracker {
+		private final Stats stats;
+
+		private final int minPeriod;
+
+		private final ISyncableObject[] tracked;
+
+		private boolean changed;
+
+		private long lastSync = Long.MIN_VALUE;
+
+		private Tracker(Stats stats, int minPeriod, ISyncableObject[] tracked) {
+			this.stats = stats;
+			this.minPeriod = minPeriod;
+			this.tracked = tracked;
+		}
+
+		/**
+		 * Reports change in state not covered by tracked objects.
+		 */
+		public void markChanged() {
+			changed = true;
+		}
+
+		private boolean hasChanges() {
+			if (changed) return true;
+
+			for (ISyncableObject o : tracked)
+				if (o.isDirty()) return true;
+
+			return false;
+		}
+
+		public boolean shouldSync(World world) {
+			stats.checks++;
+			if (!hasChanges()) return false;
+
+			final long now = world.getTotalWorldTime();
+			if (lastSync != Long.MIN_VALUE && now - lastSync < minPeriod) return false;
+
+			lastSync = now;
+			changed = false;
+			stats.syncs++;
+			return true;
+		}
+	}
+
+	public static final MachineSyncTracker instance = new MachineSyncTracker();
+
+	// trackers are also created by client tiles, but updated only on server
+	private final Map<String, Stats> stats = Maps.newConcurrentMap();
+
+	private long statsTicks;
+
+	private MachineSyncTracker() {}
+
+	public Tracker createTracker(String type, int minPeriod, ISyncableObject... tracked) {
+		final Stats typeStats = stats.computeIfAbsent(type, t -> new Stats());
+		return new Tracker(typeStats, minPeriod, tracked);
+	}
+
+	@SubscribeEvent
+	public void onServerTick(TickEvent.ServerTickEvent evt) {
+		if (evt.phase == Phase.END) statsTicks++;
+	}
+
+	public long getStatsTicks() {
+		return statsTicks;
+	}
+
+	/**
+	 * Returns copy of counters (per machine type) collected since last call and resets them.
+	 */
+	public Map<String, Stats> collectStats() {
+		final Map<String, Stats> result = Maps.newTreeMap();
+		for (Map.Entry<String, Stats> e : stats.entrySet()) {
+			final Stats current = e.getValue();
+			final Stats copy = new Stats();
+			copy.checks = current.checks;
+			copy.syncs = current.syncs;
+			result.put(e.getKey(), copy);
+
+			current.checks = 0;
+			current.syncs = 0;
+		}
+
+		statsTicks = 0;
+		return result;
+	}
+}
@@ -4,6 +4,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 import com.google.common.collect.Sets;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.PriorityQueue;
@@ -12,6 +13,7 @@ import javax.annotation.Nonnull;
 import net.minecraft.block.Block;
 import net.minecraft.block.material.MapColor;
 import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
@@ -20,6 +22,8 @@ import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraftforge.common.DimensionManager;
 import openblocks.common.HeightMapData.LayerData;
 import openblocks.common.item.ItemEmptyMap;
 import openblocks.common.item.ItemHeightMap;
@@ -33,27 +37,134 @@ public class MapDataBuilder {
 	public final int mapId;
 	private HeightMapData data;
 
-	private static class BlockCount {
-		public byte groundColor;
-		public int groundHeight;
+	/**
+	 * Topmost solid and liquid block of every column in chunk. Captured on server thread, so it can be processed in background.
+	 */
+	static class ColumnSnapshot {
+		private static final int NONE = -1;
 
-		public byte liquidColor;
-		public int liquidHeight;
+		public final int[] groundHeight = new int[16 * 16];
+		public final byte[] groundColor = new byte[16 * 16];
+
+		public final int[] liquidHeight = new int[16 * 16];
+		public final byte[] liquidColor = new byte[16 * 16];
+
+		private ColumnSnapshot() {
+			Arrays.fill(groundHeight, NONE);
+			Arrays.fill(liquidHeight, NONE);
+		}
+
+		private static int index(int x, int z) {
+			return (z << 4) | x;
+		}
 
-		private static IBlockState getValidBlock(IBlockAccess world, Chunk chunk, BlockPos pos) {
-			final IBlockState blockState = chunk.getBlockState(pos);
+		private static boolean isValidBlock(IBlockAccess world, IBlockState blockState, BlockPos pos) {
 			final Block block = blockState.getBlock();
 
-			if (block.isAir(blockState, world, pos)) return null;
+			if (block.isAir(blockState, world, pos)) return false;
+
+			if (blockState.getMapColor(world, pos) == MapColor.AIR) return false;
+
+			if (MapDataManager.instance.isBlockTransparent(block)) return false;
+
+			return true;
+		}
+
+		private static boolean isEmpty(ExtendedBlockStorage section) {
+			return section == Chunk.NULL_BLOCK_STORAGE || section.isEmpty();
+		}
+
+		/**
+		 * Returns true when column scan is finished (i.e. solid block was found)
+		 */
+		private boolean visitBlock(IBlockAccess world, int index, IBlockState blockState, BlockPos pos) {
+			if (!isValidBlock(world, blockState, pos)) return false;
+
+			if (blockState.getMaterial().isLiquid()) {
+				if (liquidHeight[index] == NONE) {
+					liquidHeight[index] = pos.getY();
+					liquidColor[index] = (byte)blockState.getMapColor(world, pos).colorIndex;
+				}
+				return false;
+			}
+
+			groundHeight[index] = pos.getY();
+			groundColor[index] = (byte)blockState.getMapColor(world, pos).colorIndex;
+			return true;
+		}
+
+		public static ColumnSnapshot capture(IBlockAccess world, Chunk chunk) {
+			return capture(world, chunk.getBlockStorageArray());
+		}
+
+		/**
+		 * Scans columns from top of highest non-empty section, skipping empty sections.
+		 * Note: chunk height map can't be used as starting point, since it ignores blocks that don't block light (like flowers or torches), but are still visible on map.
+		 */
+		public static ColumnSnapshot capture(IBlockAccess world, ExtendedBlockStorage[] sections) {
+			final ColumnSnapshot result = new ColumnSnapshot();
+			final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+			int topSection = sections.length - 1;
+			while (topSection >= 0 && isEmpty(sections[topSection]))
+				topSection--;
+
+			for (int x = 0; x < 16; x++)
+				for (int z = 0; z < 16; z++) {
+					final int index = index(x, z);
+
+					column: for (int sectionIndex = topSection; sectionIndex >= 0; sectionIndex--) {
+						final ExtendedBlockStorage section = sections[sectionIndex];
+						if (isEmpty(section)) continue;
+
+						final int baseY = sectionIndex << 4;
+						for (int y = 15; y >= 0; y--) {
+							pos.setPos(x, baseY + y, z);
+							if (result.visitBlock(world, index, section.get(x, y, z), pos)) break column;
+						}
+					}
+				}
+
+			return result;
+		}
+
+		/**
+		 * Full scan of every column, with block lookup for every position. Kept for comparison in benchmarks.
+		 */
+		public static ColumnSnapshot captureFullScan(IBlockAccess world, ExtendedBlockStorage[] sections) {
+			final ColumnSnapshot result = new ColumnSnapshot();
+
+			for (int x = 0; x < 16; x++)
+				for (int z = 0; z < 16; z++) {
+					final int index = index(x, z);
 
-			if (blockState.getMapColor(world, pos) == MapColor.AIR) return null;
+					for (int y = 255; y >= 0; y--) {
+						final BlockPos pos = new BlockPos(x, y, z);
+						final ExtendedBlockStorage section = sections[y >> 4];
+						final IBlockState blockState = section != Chunk.NULL_BLOCK_STORAGE? section.get(x, y & 15, z) : Blocks.AIR.getDefaultState();
+						if (result.visitBlock(world, index, blockState, pos)) break;
+					}
+				}
 
-			if (MapDataManager.instance.isBlockTransparent(block)) return null;
+			return result;
+		}
 
-			return blockState;
+		public boolean isSame(ColumnSnapshot other) {
+			return Arrays.equals(groundHeight, other.groundHeight) &&
+					Arrays.equals(groundColor, other.groundColor) &&
+					Arrays.equals(liquidHeight, other.liquidHeight) &&
+					Arrays.equals(liquidColor, other.liquidColor);
 		}
+	}
+
+	private static class BlockCount {
+		public byte groundColor;
+		public int groundHeight;
+
+		public byte liquidColor;
+		public int liquidHeight;
 
-		public void average(IBlockAccess world, Chunk chunk, int startX, int startZ, int size) {
+		public void average(ColumnSnapshot snapshot, int startX, int startZ, int size) {
 			double groundHeightSum = 0;
 			int[] groundColors = new int[MapColor.COLORS.length];
 
@@ -63,40 +174,18 @@ public class MapDataBuilder {
 
 			for (int x = startX; x < startX + size; x++)
 				for (int z = startZ; z < startZ + size; z++) {
-					IBlockState blockLiquid = null;
-					BlockPos heightLiquid = null;
+					final int index = ColumnSnapshot.index(x, z);
 
-					IBlockState blockSolid = null;
-					BlockPos heightSolid = null;
-
-					for (int y = 255; y >= 0; y--) {
-						final BlockPos pos = new BlockPos(x, y, z);
-						IBlockState blockState = getValidBlock(world, chunk, pos);
-
-						if (blockState != null) {
-							if (blockState.getMaterial().isLiquid()) {
-								if (blockLiquid == null) {
-									blockLiquid = blockState;
-									heightLiquid = pos;
-								}
-							} else {
-								blockSolid = blockState;
-								heightSolid = pos;
-								break;
-							}
-						}
+					final int heightSolid = snapshot.groundHeight[index];
+					if (heightSolid != ColumnSnapshot.NONE) {
+						groundHeightSum += heightSolid;
+						groundColors[snapshot.groundColor[index] & 0xFF]++;
 					}
 
-					if (blockSolid != null && heightSolid != null) {
-						groundHeightSum += heightSolid.getY();
-						MapColor color = blockSolid.getMapColor(world, heightSolid);
-						groundColors[color.colorIndex]++;
-					}
-
-					if (blockLiquid != null && heightLiquid != null) {
-						liquidHeightSum += heightLiquid.getY();
-						MapColor color = blockLiquid.getMapColor(world, heightLiquid);
-						liquidColors[color.colorIndex]++;
+					final int heightLiquid = snapshot.liquidHeight[index];
+					if (heightLiquid != ColumnSnapshot.NONE) {
+						liquidHeightSum += heightLiquid;
+						liquidColors[snapshot.liquidColor[index] & 0xFF]++;
 						liquidCount++;
 					}
 				}
@@ -124,6 +213,31 @@ public class MapDataBuilder {
 		}
 	}
 
+	private static class ChunkPixels {
+		public final byte[] groundColor;
+		public final byte[] groundHeight;
+
+		public final byte[] liquidColor;
+		public final byte[] liquidHeight;
+
+		public ChunkPixels(int pixelsPerChunk) {
+			final int count = pixelsPerChunk * pixelsPerChunk;
+			this.groundColor = new byte[count];
+			this.groundHeight = new byte[count];
+			this.liquidColor = new byte[count];
+			this.liquidHeight = new byte[count];
+		}
+	}
+
+	public interface IJobListener {
+		/**
+		 * Called on server thread, after pixels are calculated.
+		 *
+		 * @param stored false if result was discarded (map reset or server stopping) and job should be scheduled again
+		 */
+		public void onJobFinished(ChunkJob job, boolean stored);
+	}
+
 	public class ChunkJob {
 		public final ChunkPos chunk;
 		public final int pixelsPerChunk;
@@ -139,32 +253,67 @@ public class MapDataBuilder {
 			this.bitNum = bitNum;
 		}
 
-		private void mapChunk(World world, Chunk chunk) {
-			LayerData ground = data.layers[LAYER_TERRAIN];
-			LayerData liquid = data.layers[LAYER_LIQUIDS];
-
+		private ChunkPixels calculatePixels(ColumnSnapshot snapshot) {
+			final ChunkPixels result = new ChunkPixels(pixelsPerChunk);
 			final int blocksPerPixel = 16 / pixelsPerChunk;
 
-			int blockInChunkX = 0;
-			for (int mapX = mapMinX; mapX < mapMinX + pixelsPerChunk; mapX++) {
-				int blockInChunkZ = 0;
-				for (int mapY = mapMinY; mapY < mapMinY + pixelsPerChunk; mapY++) {
+			for (int pixelX = 0; pixelX < pixelsPerChunk; pixelX++)
+				for (int pixelY = 0; pixelY < pixelsPerChunk; pixelY++) {
 					BlockCount count = new BlockCount();
-					count.average(world, chunk, blockInChunkX, blockInChunkZ, blocksPerPixel);
+					count.average(snapshot, pixelX * blocksPerPixel, pixelY * blocksPerPixel, blocksPerPixel);
+
+					final int index = pixelY * pixelsPerChunk + pixelX;
+					result.groundColor[index] = count.groundColor;
+					result.groundHeight[index] = (byte)(count.groundHeight);
+					result.liquidColor[index] = count.liquidColor;
+					result.liquidHeight[index] = (byte)(count.liquidHeight);
+				}
+
+			return result;
+		}
 
-					int index = mapY * 64 + mapX;
+		private void mapChunk(World world, Chunk chunk, IJobListener listener) {
+			final ColumnSnapshot snapshot = ColumnSnapshot.capture(world, chunk);
 
-					ground.colorMap[index] = count.groundColor;
-					ground.heightMap[index] = (byte)(count.groundHeight);
+			final HeightMapData target = data;
+			final int centerX = target.centerX;
+			final int centerZ = target.centerZ;
+			final byte scale = target.scale;
 
-					liquid.colorMap[index] = count.liquidColor;
-					liquid.heightMap[index] = (byte)(count.liquidHeight);
+			MapSamplingExecutor.instance.submit(() -> calculatePixels(snapshot), pixels -> {
+				listener.onJobFinished(this, tryStorePixels(target, centerX, centerZ, scale, pixels));
+			});
+		}
+
+		private boolean tryStorePixels(HeightMapData target, int centerX, int centerZ, byte scale, ChunkPixels pixels) {
+			// map data is shared by all dimensions, so it does not matter if mapped one is still loaded
+			final World overworld = DimensionManager.getWorld(0);
+			if (overworld == null) return false;
+
+			// map may have been reset or unloaded while pixels were calculated
+			if (MapDataManager.getMapData(overworld, mapId) != target) return false;
+			if (target.centerX != centerX || target.centerZ != centerZ || target.scale != scale) return false;
+
+			storePixels(target, pixels);
+			MapDataManager.instance.markTilesUpdated(overworld, mapId, HeightMapData.getTileMask(mapMinX, mapMinY, mapMinX + pixelsPerChunk - 1, mapMinY + pixelsPerChunk - 1));
+			return true;
+		}
 
-					blockInChunkZ += blocksPerPixel;
+		private void storePixels(HeightMapData target, ChunkPixels pixels) {
+			LayerData ground = target.layers[LAYER_TERRAIN];
+			LayerData liquid = target.layers[LAYER_LIQUIDS];
+
+			for (int pixelX = 0; pixelX < pixelsPerChunk; pixelX++)
+				for (int pixelY = 0; pixelY < pixelsPerChunk; pixelY++) {
+					final int source = pixelY * pixelsPerChunk + pixelX;
+					final int index = (mapMinY + pixelY) * 64 + (mapMinX + pixelX);
+
+					ground.colorMap[index] = pixels.groundColor[source];
+					ground.heightMap[index] = pixels.groundHeight[source];
+
+					liquid.colorMap[index] = pixels.liquidColor[source];
+					liquid.heightMap[index] = pixels.liquidHeight[source];
 				}
-				blockInChunkX += blocksPerPixel;
-			}
-			MapDataManager.instance.markDataUpdated(world, mapId);
 		}
 	}
 
@@ -241,7 +390,10 @@ public class MapDataBuilder {
 		}
 	}
 
-	public static ChunkJob doNextChunk(World world, double x, double z, Collection<ChunkJob> jobs) {
+	/**
+	 * Starts mapping of nearest loaded chunk. Result is stored later, listener is notified when it happens.
+	 */
+	public static ChunkJob doNextChunk(World world, double x, double z, Collection<ChunkJob> jobs, IJobListener listener) {
 		if (jobs.isEmpty()) return null;
 
 		PriorityQueue<JobDistance> distances = Queues.newPriorityQueue();
@@ -262,7 +414,7 @@ public class MapDataBuilder {
 			// TODO verify, if does not load
 			Chunk chunk = provider.getLoadedChunk(chunkCoord.x, chunkCoord.z);
 			if (chunk != null && !chunk.isEmpty()) {
-				job.mapChunk(world, chunk);
+				job.mapChunk(world, chunk, listener);
 				return job;
 			}
 		}
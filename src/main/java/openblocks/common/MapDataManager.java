@@ -1,21 +1,34 @@
 package openblocks.common;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
+import io.netty.buffer.Unpooled;
+import java.io.File;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import net.minecraft.block.Block;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.Loader;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.PlayerEvent;
 import openblocks.Config;
+import openblocks.common.HeightMapData.LayerData;
 import openmods.Log;
 import openmods.Mods;
 import openmods.config.properties.ConfigurationChange;
@@ -48,8 +61,53 @@ public class MapDataManager {
 	@NetworkEventMeta(direction = EventDirection.C2S)
 	public static class MapDataRequestEvent extends MapIdRequest {}
 
+	/**
+	 * Partial map update: contains only listed tiles of every layer. Sent only when map layout (layer count, alphas, position) is unchanged.
+	 */
 	@NetworkEventMeta(direction = EventDirection.S2C)
-	public static class MapUpdatesEvent extends MapIdRequest {}
+	public static class MapTilesEvent extends NetworkEvent {
+		private static final int TILE_BYTES = 2 * HeightMapData.TILE_SIZE * HeightMapData.TILE_SIZE;
+
+		public int mapId;
+
+		public int tiles;
+
+		public HeightMapData source;
+
+		private int layerCount;
+
+		private byte[] payload;
+
+		@Override
+		protected void readFromStream(PacketBuffer input) {
+			mapId = input.readVarInt();
+			tiles = input.readUnsignedShort();
+			layerCount = input.readVarInt();
+			payload = new byte[layerCount * Integer.bitCount(tiles) * TILE_BYTES];
+			input.readBytes(payload);
+		}
+
+		@Override
+		protected void writeToStream(PacketBuffer output) {
+			output.writeVarInt(mapId);
+			output.writeShort(tiles);
+			output.writeVarInt(source.layers.length);
+			for (LayerData layer : source.layers)
+				for (int tile = 0; tile < HeightMapData.TILE_COUNT; tile++)
+					if ((tiles & (1 << tile)) != 0) layer.writeTileToStream(output, tile);
+		}
+
+		public boolean applyTo(HeightMapData target) {
+			if (target.layers.length != layerCount) return false;
+
+			final PacketBuffer input = new PacketBuffer(Unpooled.wrappedBuffer(payload));
+			for (LayerData layer : target.layers)
+				for (int tile = 0; tile < HeightMapData.TILE_COUNT; tile++)
+					if ((tiles & (1 << tile)) != 0) layer.readTileFromStream(input, tile);
+
+			return true;
+		}
+	}
 
 	@NetworkEventMeta(direction = EventDirection.S2C)
 	public static class MapDataResponseEvent extends NetworkEvent {
@@ -87,22 +145,35 @@ public class MapDataManager {
 
 	private Set<Block> blockBlacklist;
 
-	private Set<Integer> mapsToUpdate = Sets.newHashSet();
+	private static final int FULL_UPDATE = -1;
+
+	// map id -> changed tiles (or FULL_UPDATE, when map layout changed)
+	private final TIntIntMap pendingUpdates = new TIntIntHashMap();
+
+	// players that received map data in current session and may display it. Keyed by id, since player entity is replaced on respawn
+	private final Map<UUID, TIntSet> interestedPlayers = Maps.newHashMap();
+
+	// server side only, open while overworld is loaded
+	private HeightMapStorage storage;
 
 	public static int createNewMap(World world, byte scale) {
 		int id = world.getUniqueDataId("height_map");
 		HeightMapData data = new HeightMapData(id, false);
 		data.scale = scale;
-		data.markDirty();
-		world.setData(data.mapName, data);
+		instance.getStorage().put(id, data);
 		return id;
 	}
 
 	public static HeightMapData getMapData(World world, int mapId) {
 		if (mapId < 0) return HeightMapData.INVALID;
 
-		String name = HeightMapData.getMapName(mapId);
-		HeightMapData result = (HeightMapData)world.loadData(HeightMapData.class, name);
+		final HeightMapData result;
+		if (world.isRemote) {
+			String name = HeightMapData.getMapName(mapId);
+			result = (HeightMapData)world.loadData(HeightMapData.class, name);
+		} else {
+			result = instance.getStorage().get(mapId);
+		}
 
 		return result != null? result : HeightMapData.EMPTY;
 	}
@@ -111,13 +182,54 @@ public class MapDataManager {
 		world.setData(data.mapName, data);
 	}
 
+	private HeightMapStorage getStorage() {
+		Preconditions.checkState(storage != null, "Height map storage not loaded");
+		return storage;
+	}
+
+	@SubscribeEvent
+	public void onWorldLoad(WorldEvent.Load evt) {
+		final World world = evt.getWorld();
+		// overworld is loaded first, before any chunk (and so any cartographer) is loaded, and stays loaded until server stops.
+		// All dimensions share same save directory
+		if (!world.isRemote && world.provider.getDimension() == 0) {
+			final File dataDir = new File(world.getSaveHandler().getWorldDirectory(), "data");
+			storage = new HeightMapStorage(dataDir);
+		}
+	}
+
+	@SubscribeEvent
+	public void onWorldSave(WorldEvent.Save evt) {
+		final World world = evt.getWorld();
+		if (!world.isRemote && world.provider.getDimension() == 0 && storage != null) storage.flush();
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload evt) {
+		final World world = evt.getWorld();
+		// other dimensions (and client worlds) may unload at any time, but map data and updates belong to server session
+		if (world.isRemote || world.provider.getDimension() != 0) return;
+
+		// happens after final save, so only waits for writes to finish
+		if (storage != null) {
+			storage.close();
+			storage = null;
+		}
+
+		pendingUpdates.clear();
+		interestedPlayers.clear();
+	}
+
 	@SubscribeEvent
 	public void onMapDataRequest(MapDataRequestEvent evt) {
 		World world = evt.sender.world;
 
 		final MapDataResponseEvent response = new MapDataResponseEvent();
 		final TIntSet missingMaps = new TIntHashSet();
+		final TIntSet playerMaps = interestedPlayers.computeIfAbsent(evt.sender.getUniqueID(), id -> new TIntHashSet());
 		for (Integer mapId : evt.mapIds) {
+			// client keeps stub of missing map, so it also needs data when map is created
+			if (mapId >= 0) playerMaps.add(mapId);
 			final HeightMapData map = getMapData(world, mapId);
 			if (map != null && !map.isEmpty()) response.maps.put(mapId, map);
 			else missingMaps.add(mapId);
@@ -144,36 +256,93 @@ public class MapDataManager {
 	}
 
 	@SubscribeEvent
-	public void onMapUpdates(MapUpdatesEvent evt) {
+	public void onMapTiles(MapTilesEvent evt) {
 		World world = evt.sender.world;
 
-		Set<Integer> mapsToUpdate = Sets.newHashSet();
-		for (Integer mapId : evt.mapIds) {
-			HeightMapData map = getMapData(world, mapId);
-			if (map != null) mapsToUpdate.add(mapId);
-		}
+		HeightMapData map = getMapData(world, evt.mapId);
+		// stub: full data is already on the way, empty: never displayed on this client
+		if (!map.isValid() || map.isEmpty()) return;
+
+		if (!evt.applyTo(map)) requestMapData(world, evt.mapId);
+	}
 
-		if (!mapsToUpdate.isEmpty()) {
-			MapDataRequestEvent request = new MapDataRequestEvent();
-			request.mapIds = Lists.newArrayList(mapsToUpdate);
-			evt.reply(request);
+	@SubscribeEvent
+	public void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent evt) {
+		interestedPlayers.remove(evt.player.getUniqueID());
+	}
+
+	private static NetworkEvent createUpdateEvent(World world, int mapId, int tiles) {
+		final HeightMapData map = getMapData(world, mapId);
+		if (!map.isValid() || map.isEmpty()) return null;
+
+		if ((tiles & HeightMapData.ALL_TILES) == HeightMapData.ALL_TILES) {
+			final MapDataResponseEvent evt = new MapDataResponseEvent();
+			evt.maps.put(mapId, map);
+			return evt;
 		}
+
+		final MapTilesEvent evt = new MapTilesEvent();
+		evt.mapId = mapId;
+		evt.tiles = tiles;
+		evt.source = map;
+		return evt;
 	}
 
 	public void sendUpdates(MinecraftServer server) {
-		if (mapsToUpdate.isEmpty()) return;
+		if (pendingUpdates.isEmpty()) return;
+
+		// map data is stored in storage shared by all dimensions
+		final World world = server.getWorld(0);
+		final TIntObjectMap<NetworkEvent> events = new TIntObjectHashMap<>();
+
+		final Iterator<Map.Entry<UUID, TIntSet>> it = interestedPlayers.entrySet().iterator();
+		while (it.hasNext()) {
+			final Map.Entry<UUID, TIntSet> e = it.next();
+			final EntityPlayerMP player = server.getPlayerList().getPlayerByUUID(e.getKey());
+			if (player == null) {
+				it.remove();
+				continue;
+			}
+
+			e.getValue().forEach(mapId -> {
+				if (pendingUpdates.containsKey(mapId)) {
+					NetworkEvent event = events.get(mapId);
+					if (event == null && !events.containsKey(mapId)) {
+						event = createUpdateEvent(world, mapId, pendingUpdates.get(mapId));
+						events.put(mapId, event);
+					}
 
-		MapUpdatesEvent evt = new MapUpdatesEvent();
-		evt.mapIds.addAll(mapsToUpdate);
-		mapsToUpdate.clear();
+					if (event != null) event.sendToPlayer(player);
+				}
+				return true;
+			});
+		}
 
-		evt.sendToAll();
+		pendingUpdates.clear();
 	}
 
+	/**
+	 * Marks whole map as changed, including layer layout and position.
+	 */
 	public void markDataUpdated(World world, int mapId) {
 		HeightMapData data = getMapData(world, mapId);
-		data.markDirty();
-		mapsToUpdate.add(mapId);
+		markDirty(world, mapId, data);
+		pendingUpdates.put(mapId, FULL_UPDATE);
+	}
+
+	/**
+	 * Marks only pixel contents of given tiles as changed (see {@link HeightMapData#getTileMask(int, int, int, int)}).
+	 */
+	public void markTilesUpdated(World world, int mapId, int tiles) {
+		HeightMapData data = getMapData(world, mapId);
+		markDirty(world, mapId, data);
+		pendingUpdates.put(mapId, pendingUpdates.get(mapId) | tiles);
+	}
+
+	private void markDirty(World world, int mapId, HeightMapData data) {
+		// client copies are never saved
+		if (world.isRemote) data.markDirty();
+		else if (data.isValid()) getStorage().markDirty(mapId, data);
 	}
 
 	public static void requestMapData(World world, int mapId) {
@@ -0,0 +1,103 @@
+package openblocks.common;
+
+import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import openblocks.Config;
+import openmods.Log;
+
+/**
+ * Background executor for height map sampling. Work is done on bounded pool (when queue is full, task is executed by caller),
+ * results are delivered on server thread at the end of tick.
+ */
+public class MapSamplingExecutor {
+
+	private static final int QUEUE_SIZE = 256;
+
+	public static final MapSamplingExecutor instance = new MapSamplingExecutor();
+
+	private ExecutorService executor;
+
+	private final Queue<Runnable> completed = Queues.newConcurrentLinkedQueue();
+
+	private MapSamplingExecutor() {}
+
+	private synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			final int threadCount = Math.max(1, Config.mapSamplerThreads);
+			final ThreadPoolExecutor pool = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<>(QUEUE_SIZE),
+					new ThreadFactoryBuilder()
+							.setNameFormat("OpenBlocks map sampler #%d")
+							.setDaemon(true)
+							.setPriority(Thread.MIN_PRIORITY)
+							.build(),
+					new ThreadPoolExecutor.CallerRunsPolicy());
+			pool.allowCoreThreadTimeOut(true);
+			executor = pool;
+		}
+
+		return executor;
+	}
+
+	/**
+	 * Runs work in background. Result will be passed to callback on server thread, after current (or one of next) ticks.
+	 */
+	public <T> void submit(Callable<T> work, Consumer<T> callback) {
+		getExecutor().execute(() -> {
+			try {
+				final T result = work.call();
+				completed.add(() -> callback.accept(result));
+			} catch (Throwable t) {
+				Log.warn(t, "Failed to sample map data");
+			}
+		});
+	}
+
+	/**
+	 * Waits for all submitted work and delivers results. Should be called when server is stopping, before map data is saved.
+	 */
+	public void drain() {
+		final ExecutorService current;
+		synchronized (this) {
+			current = executor;
+			executor = null;
+		}
+
+		if (current != null) {
+			current.shutdown();
+			try {
+				if (!current.awaitTermination(30, TimeUnit.SECONDS)) Log.warn("Map sampling did not finish in time");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		deliverResults();
+	}
+
+	@SubscribeEvent
+	public void onServerTick(TickEvent.ServerTickEvent evt) {
+		if (evt.phase == Phase.END) deliverResults();
+	}
+
+	private void deliverResults() {
+		Runnable task;
+		while ((task = completed.poll()) != null) {
+			try {
+				task.run();
+			} catch (Throwable t) {
+				Log.warn(t, "Failed to merge map data");
+			}
+		}
+	}
+}
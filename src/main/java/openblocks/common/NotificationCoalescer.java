@@ -0,0 +1,74 @@
+package openblocks.common;
+
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Sets;
+import java.util.Map;
+import java.util.Set;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.EventPriority;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+
+/**
+ * Collects notification requests during world tick and delivers them (at most once per target) after all tiles are updated.
+ * Server side only.
+ */
+public class NotificationCoalescer {
+
+	public interface INotifiable {
+		public void onCoalescedNotification();
+	}
+
+	public static class Batch {
+		private Set<INotifiable> queued = Sets.newLinkedHashSet();
+
+		public void add(INotifiable target) {
+			queued.add(target);
+		}
+
+		public boolean isEmpty() {
+			return queued.isEmpty();
+		}
+
+		public void flush() {
+			// targets queued during delivery will be notified in next tick
+			final Set<INotifiable> current = queued;
+			queued = Sets.newLinkedHashSet();
+
+			for (INotifiable target : current)
+				target.onCoalescedNotification();
+		}
+	}
+
+	public static final NotificationCoalescer instance = new NotificationCoalescer();
+
+	private final Map<World, Batch> batches = new MapMaker().weakKeys().makeMap();
+
+	private NotificationCoalescer() {}
+
+	public void queue(World world, INotifiable target) {
+		Batch batch = batches.get(world);
+		if (batch == null) {
+			batch = new Batch();
+			batches.put(world, batch);
+		}
+
+		batch.add(target);
+	}
+
+	// before TileSleepManager, so tiles woken by delivered notifications are processed in same tick
+	@SubscribeEvent(priority = EventPriority.HIGH)
+	public void onWorldTick(TickEvent.WorldTickEvent evt) {
+		if (evt.phase == Phase.END) {
+			final Batch batch = batches.get(evt.world);
+			if (batch != null && !batch.isEmpty()) batch.flush();
+		}
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload evt) {
+		batches.remove(evt.getWorld());
+	}
+}
@@ -0,0 +1,386 @@
+package openblocks.common;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fluids.Fluid;
+import net.minecraftforge.fluids.FluidRegistry;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.PlayerEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.network.FMLNetworkEvent;
+import openblocks.common.tileentity.TileEntityTank;
+import openmods.Log;
+import openmods.network.event.EventDirection;
+import openmods.network.event.NetworkEvent;
+import openmods.network.event.NetworkEventMeta;
+
+/**
+ * Compact tank synchronization: instead of full tank contents, only quantized level is sent, with fluid replaced by palette id.
+ * Fluid definitions are sent only once per player. All changes in single chunk are sent in one packet at the end of tick.
+ * <p>
+ * Levels are absolute, not differences from previous sample. Both fit in single byte, but absolute level does not depend on
+ * any earlier state on client, so new watchers, reloaded chunks and palette resets need no special handling and errors can't accumulate.
+ * Bandwidth benefit of deltas comes from not sending unchanged tanks at all.
+ * <p>
+ * Quantization (1/255 of capacity, with exact empty and full states) is not visible: on client, tank amount is only used for
+ * rendering and for checking if tank is empty (pick block). There is no tank GUI and item tooltips are built from server NBT.
+ */
+public class TankLevelSyncManager {
+
+	public static final int LEVEL_STEPS = 255;
+
+	private static final int EMPTY_ID = 0;
+
+	// when exceeded (many fluid variants with different NBT), palette is rebuilt from scratch
+	private static final int MAX_PALETTE_SIZE = 4096;
+
+	// FluidStack can't be used as key, since its hashCode depends on amount
+	private static class PaletteKey {
+		private final Fluid fluid;
+
+		@Nullable
+		private final NBTTagCompound tag;
+
+		private final int hash;
+
+		public PaletteKey(Fluid fluid, @Nullable NBTTagCompound tag) {
+			this.fluid = fluid;
+			this.tag = tag;
+			this.hash = 31 * fluid.hashCode() + Objects.hashCode(tag);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) return true;
+			if (!(obj instanceof PaletteKey)) return false;
+			final PaletteKey other = (PaletteKey)obj;
+			return other.fluid == this.fluid && Objects.equals(other.tag, this.tag);
+		}
+	}
+
+	public static class PaletteEntry {
+		public final int id;
+
+		public final FluidStack fluid;
+
+		public PaletteEntry(int id, FluidStack fluid) {
+			this.id = id;
+			this.fluid = fluid;
+		}
+	}
+
+	@NetworkEventMeta(direction = EventDirection.S2C)
+	public static class TankLevelsEvent extends NetworkEvent {
+		public int dimension;
+
+		public int chunkX;
+
+		public int chunkZ;
+
+		public List<PaletteEntry> palette = Lists.newArrayList();
+
+		// packed as in ChunkSection: y << 8 | z << 4 | x
+		public short[] positions;
+
+		public int[] fluidIds;
+
+		public byte[] levels;
+
+		@Override
+		protected void readFromStream(PacketBuffer input) {
+			dimension = input.readVarInt();
+			chunkX = input.readVarInt();
+			chunkZ = input.readVarInt();
+
+			final int paletteSize = input.readVarInt();
+			for (int i = 0; i < paletteSize; i++) {
+				final int id = input.readVarInt();
+				final String name = input.readString(Short.MAX_VALUE);
+				final NBTTagCompound tag = readTag(input);
+				final Fluid fluid = FluidRegistry.getFluid(name);
+				if (fluid != null) palette.add(new PaletteEntry(id, new FluidStack(fluid, 0, tag)));
+				else Log.debug("Unknown fluid in tank sync palette: %s", name);
+			}
+
+			final int count = input.readVarInt();
+			positions = new short[count];
+			fluidIds = new int[count];
+			levels = new byte[count];
+			for (int i = 0; i < count; i++) {
+				positions[i] = input.readShort();
+				fluidIds[i] = input.readVarInt();
+				levels[i] = input.readByte();
+			}
+		}
+
+		@Override
+		protected void writeToStream(PacketBuffer output) {
+			output.writeVarInt(dimension);
+			output.writeVarInt(chunkX);
+			output.writeVarInt(chunkZ);
+
+			output.writeVarInt(palette.size());
+			for (PaletteEntry e : palette) {
+				output.writeVarInt(e.id);
+				output.writeString(e.fluid.getFluid().getName());
+				output.writeCompoundTag(e.fluid.tag);
+			}
+
+			output.writeVarInt(positions.length);
+			for (int i = 0; i < positions.length; i++) {
+				output.writeShort(positions[i]);
+				output.writeVarInt(fluidIds[i]);
+				output.writeByte(levels[i]);
+			}
+		}
+
+		@Nullable
+		private static NBTTagCompound readTag(PacketBuffer input) {
+			try {
+				return input.readCompoundTag();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	public static final TankLevelSyncManager instance = new TankLevelSyncManager();
+
+	// server side
+	private final Map<PaletteKey, Integer> paletteIds = Maps.newHashMap();
+
+	private final List<FluidStack> paletteFluids = Lists.newArrayList();
+
+	private final Map<EntityPlayer, TIntSet> knownIds = new MapMaker().weakKeys().makeMap();
+
+	private final Map<World, TLongObjectMap<Map<BlockPos, TileEntityTank>>> pendingUpdates = new MapMaker().weakKeys().makeMap();
+
+	private final Map<TileEntityTank, Integer> lastSentState = new MapMaker().weakKeys().makeMap();
+
+	// client side, replaced (not cleared) on disconnect, since that event is fired on network thread
+	private volatile TIntObjectMap<FluidStack> clientPalette = new TIntObjectHashMap<>();
+
+	private TankLevelSyncManager() {}
+
+	public static int quantize(int amount, int capacity) {
+		if (amount <= 0) return 0;
+		if (amount >= capacity) return LEVEL_STEPS;
+		final int level = Math.round((float)amount * LEVEL_STEPS / capacity);
+		// only completely empty and completely full tanks are rendered differently
+		return Math.max(1, Math.min(level, LEVEL_STEPS - 1));
+	}
+
+	public static int dequantize(int level, int capacity) {
+		if (level >= LEVEL_STEPS) return capacity;
+		return Math.round((float)level * capacity / LEVEL_STEPS);
+	}
+
+	/**
+	 * Schedules sending current level of tank to all players watching it. Should be called instead of full tank sync.
+	 */
+	public void queue(TileEntityTank tank) {
+		final World world = tank.getWorld();
+		TLongObjectMap<Map<BlockPos, TileEntityTank>> worldUpdates = pendingUpdates.get(world);
+		if (worldUpdates == null) {
+			worldUpdates = new TLongObjectHashMap<>();
+			pendingUpdates.put(world, worldUpdates);
+		}
+
+		final BlockPos pos = tank.getPos();
+		final long chunkKey = ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+		Map<BlockPos, TileEntityTank> chunkUpdates = worldUpdates.get(chunkKey);
+		if (chunkUpdates == null) {
+			chunkUpdates = Maps.newHashMap();
+			worldUpdates.put(chunkKey, chunkUpdates);
+		}
+
+		chunkUpdates.put(pos, tank);
+	}
+
+	private int getPaletteId(FluidStack fluid) {
+		if (fluid == null || fluid.amount <= 0) return EMPTY_ID;
+
+		// lookup with live tag - it's copied only when new entry is added
+		Integer id = paletteIds.get(new PaletteKey(fluid.getFluid(), fluid.tag));
+		if (id == null) {
+			final FluidStack entry = new FluidStack(fluid, 0);
+			paletteFluids.add(entry);
+			id = paletteFluids.size();
+			paletteIds.put(new PaletteKey(entry.getFluid(), entry.tag), id);
+		}
+
+		return id;
+	}
+
+	/**
+	 * Drops all palette entries. Players will receive new definitions with next updates, sent states are also forgotten, since ids are reused.
+	 */
+	public void resetPalette() {
+		paletteIds.clear();
+		paletteFluids.clear();
+		knownIds.clear();
+		lastSentState.clear();
+	}
+
+	@SubscribeEvent
+	public void onServerTick(TickEvent.ServerTickEvent evt) {
+		if (evt.phase != Phase.END || pendingUpdates.isEmpty()) return;
+
+		// checked between batches, so ids used in single packet are always consistent
+		if (paletteFluids.size() >= MAX_PALETTE_SIZE) resetPalette();
+
+		for (Map.Entry<World, TLongObjectMap<Map<BlockPos, TileEntityTank>>> e : pendingUpdates.entrySet()) {
+			final WorldServer world = (WorldServer)e.getKey();
+			e.getValue().forEachEntry((chunkKey, tanks) -> {
+				sendChunkUpdates(world, (int)chunkKey, (int)(chunkKey >> 32), tanks.values());
+				return true;
+			});
+		}
+
+		pendingUpdates.clear();
+	}
+
+	private void sendChunkUpdates(WorldServer world, int chunkX, int chunkZ, Iterable<TileEntityTank> tanks) {
+		final List<TileEntityTank> changed = Lists.newArrayList();
+		final TIntSet usedIds = new TIntHashSet();
+		final List<Integer> ids = Lists.newArrayList();
+		final List<Integer> levels = Lists.newArrayList();
+
+		for (TileEntityTank tank : tanks) {
+			if (tank.isInvalid()) continue;
+
+			final FluidStack fluid = tank.getTank().getFluid();
+			final int id = getPaletteId(fluid);
+			final int level = id != EMPTY_ID? quantize(fluid.amount, tank.getTank().getCapacity()) : 0;
+
+			final Integer state = (id << 8) | level;
+			if (state.equals(lastSentState.get(tank))) continue;
+			lastSentState.put(tank, state);
+
+			changed.add(tank);
+			ids.add(id);
+			levels.add(level);
+			if (id != EMPTY_ID) usedIds.add(id);
+		}
+
+		if (changed.isEmpty()) return;
+
+		final int count = changed.size();
+		final short[] positions = new short[count];
+		final int[] fluidIds = new int[count];
+		final byte[] levelBytes = new byte[count];
+		for (int i = 0; i < count; i++) {
+			final BlockPos pos = changed.get(i).getPos();
+			positions[i] = (short)(((pos.getY() & 0xFF) << 8) | ((pos.getZ() & 0xF) << 4) | (pos.getX() & 0xF));
+			fluidIds[i] = ids.get(i);
+			levelBytes[i] = (byte)(int)levels.get(i);
+		}
+
+		for (EntityPlayer player : world.playerEntities) {
+			final EntityPlayerMP playerMP = (EntityPlayerMP)player;
+			if (!world.getPlayerChunkMap().isPlayerWatchingChunk(playerMP, chunkX, chunkZ)) continue;
+
+			final TankLevelsEvent event = new TankLevelsEvent();
+			event.dimension = world.provider.getDimension();
+			event.chunkX = chunkX;
+			event.chunkZ = chunkZ;
+			event.positions = positions;
+			event.fluidIds = fluidIds;
+			event.levels = levelBytes;
+
+			TIntSet playerIds = knownIds.get(player);
+			if (playerIds == null) {
+				playerIds = new TIntHashSet();
+				knownIds.put(player, playerIds);
+			}
+
+			final TIntSet playerKnownIds = playerIds;
+			usedIds.forEach(id -> {
+				if (playerKnownIds.add(id)) event.palette.add(new PaletteEntry(id, paletteFluids.get(id - 1)));
+				return true;
+			});
+
+			event.sendToPlayer(player);
+		}
+	}
+
+	@SubscribeEvent
+	public void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent evt) {
+		knownIds.remove(evt.player);
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload evt) {
+		pendingUpdates.remove(evt.getWorld());
+	}
+
+	@SubscribeEvent
+	public void onTankLevels(TankLevelsEvent evt) {
+		final World world = evt.sender.world;
+		if (world.provider.getDimension() != evt.dimension) return;
+
+		final TIntObjectMap<FluidStack> clientPalette = this.clientPalette;
+		for (PaletteEntry e : evt.palette)
+			clientPalette.put(e.id, e.fluid);
+
+		final int baseX = evt.chunkX << 4;
+		final int baseZ = evt.chunkZ << 4;
+		for (int i = 0; i < evt.positions.length; i++) {
+			final int packed = evt.positions[i] & 0xFFFF;
+			final BlockPos pos = new BlockPos(baseX + (packed & 0xF), packed >> 8, baseZ + ((packed >> 4) & 0xF));
+			if (!world.isBlockLoaded(pos)) continue;
+
+			final TileEntity te = world.getTileEntity(pos);
+			if (!(te instanceof TileEntityTank)) continue;
+
+			final TileEntityTank tank = (TileEntityTank)te;
+			final int fluidId = evt.fluidIds[i];
+			final int level = evt.levels[i] & 0xFF;
+
+			if (fluidId == EMPTY_ID || level == 0) {
+				tank.setSyncedFluid(null);
+			} else {
+				final FluidStack fluid = clientPalette.get(fluidId);
+				if (fluid == null) {
+					Log.debug("Unknown tank sync palette id %d", fluidId);
+					continue;
+				}
+
+				tank.setSyncedFluid(new FluidStack(fluid, dequantize(level, tank.getTank().getCapacity())));
+			}
+		}
+	}
+
+	@SubscribeEvent
+	public void onClientDisconnect(FMLNetworkEvent.ClientDisconnectionFromServerEvent evt) {
+		clientPalette = new TIntObjectHashMap<>();
+	}
+}
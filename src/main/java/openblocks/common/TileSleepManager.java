@@ -0,0 +1,120 @@
+package openblocks.common;
+
+import com.google.common.collect.MapMaker;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+
+/**
+ * Allows ticking tile entities to temporarily leave world ticking list. Since list can't be modified while world is updating tiles,
+ * all changes are queued and applied after world tick.
+ */
+public class TileSleepManager {
+
+	public static final TileSleepManager instance = new TileSleepManager();
+
+	private static Set<TileEntity> createWeakSet() {
+		return Collections.newSetFromMap(new MapMaker().weakKeys().<TileEntity, Boolean> makeMap());
+	}
+
+	private static class WorldState {
+		private final Set<TileEntity> sleeping = createWeakSet();
+
+		private final Set<TileEntity> toSleep = createWeakSet();
+
+		private final Set<TileEntity> toWake = createWeakSet();
+
+		private void sleep(TileEntity te) {
+			toWake.remove(te);
+			if (!sleeping.contains(te)) toSleep.add(te);
+		}
+
+		private void wake(TileEntity te) {
+			if (toSleep.remove(te)) return;
+			if (sleeping.contains(te)) toWake.add(te);
+		}
+
+		private void process(World world) {
+			if (!toSleep.isEmpty()) {
+				world.tickableTileEntities.removeAll(toSleep);
+				sleeping.addAll(toSleep);
+				toSleep.clear();
+			}
+
+			if (!toWake.isEmpty()) {
+				for (TileEntity te : toWake)
+					if (sleeping.remove(te) && isStillLoaded(world, te)) world.tickableTileEntities.add(te);
+
+				toWake.clear();
+			}
+		}
+
+		private static boolean isStillLoaded(World world, TileEntity te) {
+			if (te.isInvalid()) return false;
+			final BlockPos pos = te.getPos();
+			return world.isBlockLoaded(pos) && world.getTileEntity(pos) == te;
+		}
+	}
+
+	private final Map<World, WorldState> worlds = new MapMaker().weakKeys().makeMap();
+
+	private TileSleepManager() {}
+
+	private WorldState getState(World world) {
+		WorldState state = worlds.get(world);
+		if (state == null) {
+			state = new WorldState();
+			worlds.put(world, state);
+		}
+		return state;
+	}
+
+	/**
+	 * Removes tile from ticking list (after current world tick). Must be called from thread that owns world.
+	 */
+	public void sleep(TileEntity te) {
+		getState(te.getWorld()).sleep(te);
+	}
+
+	/**
+	 * Puts tile back to ticking list (after current world tick). Must be called from thread that owns world.
+	 */
+	public void wake(TileEntity te) {
+		final WorldState state = worlds.get(te.getWorld());
+		if (state != null) state.wake(te);
+	}
+
+	public int getSleepingCount(World world) {
+		final WorldState state = worlds.get(world);
+		return state != null? state.sleeping.size() : 0;
+	}
+
+	@SubscribeEvent
+	public void onWorldTick(TickEvent.WorldTickEvent evt) {
+		if (evt.phase == Phase.END) {
+			final WorldState state = worlds.get(evt.world);
+			if (state != null) state.process(evt.world);
+		}
+	}
+
+	@SubscribeEvent
+	public void onClientTick(TickEvent.ClientTickEvent evt) {
+		// only fired on client, so no need to reference client world directly
+		if (evt.phase == Phase.END) {
+			for (Map.Entry<World, WorldState> e : worlds.entrySet())
+				if (e.getKey().isRemote) e.getValue().process(e.getKey());
+		}
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload evt) {
+		worlds.remove(evt.getWorld());
+	}
+}
@@ -0,0 +1,198 @@
+package openblocks.common;
+
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.item.EntityXPOrb;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import openblocks.Config;
+
+/**
+ * Merges XP orbs spawned in areas of XP collectors (vacuum hoppers, XP drains), so collector can absorb whole pile with single fill.
+ * New orb is dropped and its value is added to orb previously spawned in the same block. Only plain vanilla orbs are merged. Server side only.
+ */
+public class XpOrbCoalescer {
+
+	private static final int PURGE_PERIOD = 100;
+
+	private static final double MAX_MERGE_DISTANCE_SQ = 1.5 * 1.5;
+
+	public static class Collector {
+		private final TileEntity owner;
+
+		private final AxisAlignedBB localArea;
+
+		private AxisAlignedBB area;
+
+		private World registeredWorld;
+
+		private long[] registeredChunks;
+
+		private Collector(TileEntity owner, AxisAlignedBB localArea) {
+			this.owner = owner;
+			this.localArea = localArea;
+		}
+
+		/**
+		 * Should be called from server tick of owner. Registration is done lazily, since position is not known on creation.
+		 */
+		public void update() {
+			if (registeredWorld == null) instance.register(this);
+		}
+
+		public void unregister() {
+			if (registeredWorld != null) instance.unregister(this);
+		}
+	}
+
+	private static class WorldState {
+		private final TLongObjectMap<Set<Collector>> collectors = new TLongObjectHashMap<>();
+
+		private final Map<BlockPos, EntityXPOrb> aggregates = Maps.newHashMap();
+
+		private void purgeDeadOrbs() {
+			final Iterator<EntityXPOrb> it = aggregates.values().iterator();
+			while (it.hasNext())
+				if (!isUsable(it.next())) it.remove();
+		}
+	}
+
+	public static final XpOrbCoalescer instance = new XpOrbCoalescer();
+
+	private final Map<World, WorldState> worlds = new MapMaker().weakKeys().makeMap();
+
+	private XpOrbCoalescer() {}
+
+	/**
+	 * @param localArea area covered by collector, relative to its position
+	 */
+	public Collector createCollector(TileEntity owner, AxisAlignedBB localArea) {
+		return new Collector(owner, localArea);
+	}
+
+	private void register(Collector collector) {
+		final World world = collector.owner.getWorld();
+		WorldState state = worlds.get(world);
+		if (state == null) {
+			state = new WorldState();
+			worlds.put(world, state);
+		}
+
+		final AxisAlignedBB area = collector.localArea.offset(collector.owner.getPos());
+		final int minChunkX = MathHelper.floor(area.minX) >> 4;
+		final int maxChunkX = MathHelper.floor(area.maxX) >> 4;
+		final int minChunkZ = MathHelper.floor(area.minZ) >> 4;
+		final int maxChunkZ = MathHelper.floor(area.maxZ) >> 4;
+
+		final long[] keys = new long[(maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1)];
+		int i = 0;
+		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++)
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+				final long key = ChunkPos.asLong(chunkX, chunkZ);
+				Set<Collector> chunkCollectors = state.collectors.get(key);
+				if (chunkCollectors == null) {
+					chunkCollectors = Sets.newHashSet();
+					state.collectors.put(key, chunkCollectors);
+				}
+				chunkCollectors.add(collector);
+				keys[i++] = key;
+			}
+
+		collector.area = area;
+		collector.registeredWorld = world;
+		collector.registeredChunks = keys;
+	}
+
+	private void unregister(Collector collector) {
+		final WorldState state = worlds.get(collector.registeredWorld);
+		if (state != null) {
+			for (long key : collector.registeredChunks) {
+				final Set<Collector> chunkCollectors = state.collectors.get(key);
+				if (chunkCollectors != null) {
+					chunkCollectors.remove(collector);
+					if (chunkCollectors.isEmpty()) state.collectors.remove(key);
+				}
+			}
+		}
+
+		collector.registeredWorld = null;
+		collector.registeredChunks = null;
+		collector.area = null;
+	}
+
+	private static boolean isUsable(EntityXPOrb orb) {
+		// orbs from unloaded chunks may still be in cache, but they are no longer part of world
+		return !orb.isDead && orb.isAddedToWorld();
+	}
+
+	private static boolean isCovered(Set<Collector> collectors, Entity entity) {
+		for (Collector collector : collectors) {
+			final AxisAlignedBB area = collector.area;
+			if (entity.posX >= area.minX && entity.posX < area.maxX &&
+					entity.posY >= area.minY && entity.posY < area.maxY &&
+					entity.posZ >= area.minZ && entity.posZ < area.maxZ) return true;
+		}
+
+		return false;
+	}
+
+	@SubscribeEvent
+	public void onEntityJoin(EntityJoinWorldEvent evt) {
+		final Entity entity = evt.getEntity();
+		// exact class - subclasses (like shower orbs) may have special behaviour
+		if (entity.getClass() != EntityXPOrb.class || !Config.collectorsCoalesceXpOrbs) return;
+
+		final World world = evt.getWorld();
+		if (world.isRemote) return;
+
+		// event is also fired for entities loaded with chunk. They are already in chunk, so cancelling would not remove them (and would duplicate XP)
+		if (entity.addedToChunk) return;
+
+		final WorldState state = worlds.get(world);
+		if (state == null) return;
+
+		// entity is not yet added to chunk, so chunk coordinates are calculated from position
+		final Set<Collector> collectors = state.collectors.get(ChunkPos.asLong(MathHelper.floor(entity.posX) >> 4, MathHelper.floor(entity.posZ) >> 4));
+		if (collectors == null || !isCovered(collectors, entity)) return;
+
+		final EntityXPOrb orb = (EntityXPOrb)entity;
+		final BlockPos key = new BlockPos(orb);
+		final EntityXPOrb aggregate = state.aggregates.get(key);
+		if (aggregate != null && aggregate != orb && isUsable(aggregate) && aggregate.getDistanceSq(orb) < MAX_MERGE_DISTANCE_SQ) {
+			aggregate.xpValue += orb.xpValue;
+			aggregate.xpOrbAge = 0;
+			evt.setCanceled(true);
+		} else {
+			state.aggregates.put(key, orb);
+		}
+	}
+
+	@SubscribeEvent
+	public void onWorldTick(TickEvent.WorldTickEvent evt) {
+		if (evt.phase == Phase.END && evt.world.getTotalWorldTime() % PURGE_PERIOD == 0) {
+			final WorldState state = worlds.get(evt.world);
+			if (state != null) state.purgeDeadOrbs();
+		}
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload evt) {
+		worlds.remove(evt.getWorld());
+	}
+}
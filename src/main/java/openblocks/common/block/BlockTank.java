@@ -11,7 +11,6 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.NonNullList;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.RayTraceResult;
 import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
@@ -94,10 +93,7 @@ public class BlockTank extends OpenBlock {
 	@Override
 	public int getComparatorInputOverride(IBlockState state, World world, BlockPos pos) {
 		TileEntityTank tile = getTileEntity(world, pos, TileEntityTank.class);
-		double value = tile.getFluidRatio() * 15;
-		if (value == 0) return 0;
-		int trunc = MathHelper.floor(value);
-		return Math.max(trunc, 1);
+		return tile != null? tile.getComparatorLevel() : 0;
 	}
 
 	@Override
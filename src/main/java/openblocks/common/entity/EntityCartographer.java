@@ -1,6 +1,7 @@
 package openblocks.common.entity;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import io.netty.buffer.ByteBuf;
 import java.io.IOException;
 import java.util.Random;
@@ -92,12 +93,20 @@ public class EntityCartographer extends EntityAssistant implements ISelectAware,
 				Log.severe("STOP ABUSING CARTOGRAPHER RIGHT NOW! YOU BROKE IT!");
 				jobs = ImmutableSet.of();
 			}
-			ChunkJob job = MapDataBuilder.doNextChunk(world, x, z, jobs);
-			if (job != null) {
-				jobs.remove(job);
-				bits.setBit(job.bitNum);
-				markDirty();
-			}
+			final Set<ChunkJob> currentJobs = jobs;
+			ChunkJob job = MapDataBuilder.doNextChunk(world, x, z, jobs, (finished, stored) -> {
+				// mapping was stopped or restarted in meantime
+				if (jobs != currentJobs) return;
+
+				if (stored) {
+					bits.setBit(finished.bitNum);
+					markDirty();
+				} else {
+					jobs.add(finished);
+				}
+			});
+			// pending until result is stored
+			if (job != null) jobs.remove(job);
 		}
 
 		public void resumeMapping(World world, int mapId) {
@@ -123,7 +132,7 @@ public class EntityCartographer extends EntityAssistant implements ISelectAware,
 		}
 
 		public void stopMapping() {
-			jobs.clear();
+			jobs = Sets.newHashSet();
 			bits.resize(0);
 			size = 0;
 			markDirty();
@@ -0,0 +1,96 @@
+package openblocks.common.tileentity;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
+import java.util.Map;
+import javax.annotation.Nullable;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
+import openmods.utils.InventoryUtils;
+
+/**
+ * Remembers if item kind (item, damage, NBT) can be inserted into inventory, so every entity of the same kind is checked only once.
+ * Result does not depend on stack size (single item is tested), so it stays valid until inventory is modified.
+ */
+class ItemAcceptanceCache {
+
+	// limit for worst case of many NBT variants (cache is just cleared, since it's rebuilt in single tick anyway)
+	private static final int MAX_ENTRIES = 256;
+
+	private static class Key {
+		private final Item item;
+
+		private final int damage;
+
+		@Nullable
+		private final NBTTagCompound tag;
+
+		private final int hash;
+
+		private Key(Item item, int damage, @Nullable NBTTagCompound tag) {
+			this.item = item;
+			this.damage = damage;
+			this.tag = tag;
+			this.hash = Objects.hashCode(item, damage, tag);
+		}
+
+		/**
+		 * Key for lookup only - references live tag of stack.
+		 */
+		public static Key lookup(ItemStack stack) {
+			return new Key(stack.getItem(), stack.getItemDamage(), stack.getTagCompound());
+		}
+
+		/**
+		 * Key safe for storing - tag is copied, so later changes to stack can't affect map.
+		 */
+		public Key detach() {
+			return tag != null? new Key(item, damage, tag.copy()) : this;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) return true;
+			if (!(obj instanceof Key)) return false;
+			final Key other = (Key)obj;
+			return other.hash == this.hash &&
+					other.item == this.item &&
+					other.damage == this.damage &&
+					Objects.equal(other.tag, this.tag);
+		}
+	}
+
+	private final IItemHandler handler;
+
+	private final Map<Key, Boolean> results = Maps.newHashMap();
+
+	public ItemAcceptanceCache(IItemHandler handler) {
+		this.handler = handler;
+	}
+
+	public boolean canInsert(ItemStack stack) {
+		if (stack.isEmpty()) return false;
+
+		final Key key = Key.lookup(stack);
+		Boolean result = results.get(key);
+		if (result == null) {
+			result = InventoryUtils.canInsertStack(handler, ItemHandlerHelper.copyStackWithSize(stack, 1));
+			if (results.size() >= MAX_ENTRIES) results.clear();
+			results.put(key.detach(), result);
+		}
+
+		return result;
+	}
+
+	public void invalidate() {
+		results.clear();
+	}
+}
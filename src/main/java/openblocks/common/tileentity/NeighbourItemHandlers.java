@@ -0,0 +1,137 @@
+package openblocks.common.tileentity;
+
+import com.google.common.collect.Lists;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+import net.minecraft.item.ItemStack;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.items.CapabilityItemHandler;
+import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
+
+/**
+ * Reusable replacement for ItemMover, which keeps item handlers of neighbours between transfers (sides are tried in random order, until first successful move).
+ * Handler is dropped when its tile is invalidated or owner calls {@link #invalidate()} (on neighbour change and chunk unload).
+ * Tiles without handler capability are not cached, since capabilities may depend on their configuration.
+ */
+class NeighbourItemHandlers {
+
+	private final TileEntity owner;
+
+	private final TileEntity[] tiles = new TileEntity[EnumFacing.VALUES.length];
+
+	private final IItemHandler[] handlers = new IItemHandler[EnumFacing.VALUES.length];
+
+	// sides with known state: cached handler or no tile at all
+	private int resolvedSides;
+
+	private final List<EnumFacing> sideOrder = Lists.newArrayListWithCapacity(EnumFacing.VALUES.length);
+
+	public NeighbourItemHandlers(TileEntity owner) {
+		this.owner = owner;
+	}
+
+	public void invalidate() {
+		resolvedSides = 0;
+		Arrays.fill(tiles, null);
+		Arrays.fill(handlers, null);
+	}
+
+	@Nullable
+	private IItemHandler getHandler(EnumFacing side) {
+		final int index = side.ordinal();
+		final int bit = 1 << index;
+		if ((resolvedSides & bit) != 0) {
+			final TileEntity te = tiles[index];
+			if (te == null || !te.isInvalid()) return handlers[index];
+			resolvedSides &= ~bit;
+		}
+
+		final World world = owner.getWorld();
+		final BlockPos neighbourPos = owner.getPos().offset(side);
+		if (!world.isBlockLoaded(neighbourPos)) return null;
+
+		final TileEntity te = world.getTileEntity(neighbourPos);
+		final IItemHandler handler;
+		if (te == null) {
+			handler = null;
+		} else {
+			final EnumFacing neighbourSide = side.getOpposite();
+			if (!te.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, neighbourSide)) return null;
+			handler = te.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, neighbourSide);
+			if (handler == null) return null;
+		}
+
+		tiles[index] = te;
+		handlers[index] = handler;
+		resolvedSides |= bit;
+		return handler;
+	}
+
+	private List<EnumFacing> shuffleSides(Set<EnumFacing> sides) {
+		sideOrder.clear();
+		sideOrder.addAll(sides);
+		Collections.shuffle(sideOrder, owner.getWorld().rand);
+		return sideOrder;
+	}
+
+	private static int move(IItemHandler source, int sourceSlot, IItemHandler target, int targetSlot, int maxSize) {
+		final ItemStack available = source.extractItem(sourceSlot, maxSize, true);
+		if (available.isEmpty()) return 0;
+
+		final ItemStack notAccepted = targetSlot < 0
+				? ItemHandlerHelper.insertItem(target, available, true)
+				: target.insertItem(targetSlot, available, true);
+		final int accepted = available.getCount() - notAccepted.getCount();
+		if (accepted <= 0) return 0;
+
+		final ItemStack extracted = source.extractItem(sourceSlot, accepted, false);
+		final ItemStack leftover = targetSlot < 0
+				? ItemHandlerHelper.insertItem(target, extracted, false)
+				: target.insertItem(targetSlot, extracted, false);
+		if (!leftover.isEmpty()) source.insertItem(sourceSlot, leftover, false);
+		return extracted.getCount() - leftover.getCount();
+	}
+
+	/**
+	 * Moves up to maxSize items from slot to first neighbour (on one of given sides) that accepts them.
+	 */
+	public int pushFromSlot(IItemHandler source, int slot, Set<EnumFacing> sides, int maxSize) {
+		if (sides.isEmpty() || source.getStackInSlot(slot).isEmpty()) return 0;
+
+		for (EnumFacing side : shuffleSides(sides)) {
+			final IItemHandler target = getHandler(side);
+			if (target == null) continue;
+
+			final int moved = move(source, slot, target, -1, maxSize);
+			if (moved > 0) return moved;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Moves up to maxSize items from first neighbour (on one of given sides) that has matching stack.
+	 */
+	public int pullToSlot(IItemHandler target, int slot, Set<EnumFacing> sides, int maxSize) {
+		if (sides.isEmpty()) return 0;
+
+		for (EnumFacing side : shuffleSides(sides)) {
+			final IItemHandler source = getHandler(side);
+			if (source == null) continue;
+
+			for (int i = 0; i < source.getSlots(); i++) {
+				final int moved = move(source, i, target, slot, maxSize);
+				if (moved > 0) return moved;
+			}
+		}
+
+		return 0;
+	}
+}
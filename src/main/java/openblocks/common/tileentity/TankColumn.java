@@ -0,0 +1,144 @@
+package openblocks.common.tileentity;
+
+import com.google.common.collect.Lists;
+import java.util.List;
+import javax.annotation.Nullable;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.fluids.FluidStack;
+
+/**
+ * Cached vertical run of tanks, shared by all its members. Used to walk column during fill/drain without world lookups.
+ * Structure is invalidated by members when tank above or below them changes, contents - on every fluid change.
+ */
+class TankColumn {
+
+	private final List<TileEntityTank> tanks;
+
+	private final int bottomY;
+
+	private boolean valid = true;
+
+	private boolean contentsValid;
+
+	private boolean mixedFluids;
+
+	@Nullable
+	private FluidStack fluid;
+
+	// sum of free space from index to top
+	private int[] spaceAbove;
+
+	// sum of contents from index to first empty tank above
+	private int[] drainableAbove;
+
+	private TankColumn(List<TileEntityTank> tanks) {
+		this.tanks = tanks;
+		this.bottomY = tanks.get(0).getPos().getY();
+	}
+
+	public static TankColumn get(TileEntityTank tank) {
+		final TankColumn current = tank.column;
+		if (current != null && current.valid) return current;
+
+		TileEntityTank bottom = tank;
+		while (true) {
+			final TileEntityTank below = getTank(bottom, bottom.getPos().down());
+			if (below == null) break;
+			bottom = below;
+		}
+
+		final List<TileEntityTank> tanks = Lists.newArrayList();
+		for (TileEntityTank t = bottom; t != null; t = getTank(t, t.getPos().up()))
+			tanks.add(t);
+
+		final TankColumn column = new TankColumn(tanks);
+		for (TileEntityTank t : tanks)
+			t.column = column;
+
+		return column;
+	}
+
+	@Nullable
+	private static TileEntityTank getTank(TileEntityTank tank, BlockPos pos) {
+		if (pos.getY() < 0 || pos.getY() > 255) return null;
+		final TileEntityTank result = tank.getNeighourTank(pos);
+		return (result != null && !result.isInvalid())? result : null;
+	}
+
+	public void invalidate() {
+		valid = false;
+	}
+
+	public void markContentsChanged() {
+		contentsValid = false;
+	}
+
+	/**
+	 * Called by member when block at neighbourPos was updated. Invalidates column only when it no longer matches world.
+	 */
+	public void checkNeighbour(TileEntityTank tank, BlockPos neighbourPos) {
+		final BlockPos pos = tank.getPos();
+		if (neighbourPos.getX() != pos.getX() || neighbourPos.getZ() != pos.getZ()) return;
+
+		if (getTank(tank, neighbourPos) != getTankAt(neighbourPos.getY())) invalidate();
+	}
+
+	@Nullable
+	private TileEntityTank getTankAt(int y) {
+		final int index = y - bottomY;
+		return (index >= 0 && index < tanks.size())? tanks.get(index) : null;
+	}
+
+	public int size() {
+		return tanks.size();
+	}
+
+	public int indexOf(TileEntityTank tank) {
+		return tank.getPos().getY() - bottomY;
+	}
+
+	public TileEntityTank get(int index) {
+		return tanks.get(index);
+	}
+
+	private void updateContents() {
+		contentsValid = true;
+
+		final int size = tanks.size();
+		spaceAbove = new int[size + 1];
+		drainableAbove = new int[size + 1];
+		fluid = null;
+		mixedFluids = false;
+
+		for (int i = size - 1; i >= 0; i--) {
+			final TileEntityTank tank = tanks.get(i);
+			final FluidStack contents = tank.getStoredFluid();
+			final int amount = contents != null? contents.amount : 0;
+			spaceAbove[i] = spaceAbove[i + 1] + TileEntityTank.getTankCapacity() - amount;
+			drainableAbove[i] = amount > 0? drainableAbove[i + 1] + amount : 0;
+
+			if (amount > 0) {
+				if (fluid == null) fluid = contents;
+				else if (!fluid.isFluidEqual(contents)) mixedFluids = true;
+			}
+		}
+	}
+
+	/**
+	 * @return amount of resource that can be inserted into tanks from given one to top or -1, if it can't be determined without visiting every tank
+	 */
+	public int getAvailableSpace(TileEntityTank from, FluidStack resource) {
+		if (!contentsValid) updateContents();
+		if (mixedFluids || (fluid != null && !fluid.isFluidEqual(resource))) return -1;
+		return spaceAbove[indexOf(from)];
+	}
+
+	/**
+	 * @return amount of resource that can be drained from tanks from given one to top or -1, if it can't be determined without visiting every tank
+	 */
+	public int getAvailableContents(TileEntityTank from, FluidStack resource) {
+		if (!contentsValid) updateContents();
+		if (mixedFluids || fluid == null || !fluid.isFluidEqual(resource)) return -1;
+		return drainableAbove[indexOf(from)];
+	}
+}
@@ -0,0 +1,245 @@
+package openblocks.common.tileentity;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.capability.FluidTankProperties;
+import net.minecraftforge.fluids.capability.IFluidTankProperties;
+
+/**
+ * Single fluid storage shared by group of connected tanks (server side only).
+ * Groups are merged with union-find on placement. Removal only marks group as fragmented - it's split into connected parts on next flush.
+ * Contents of member tanks are recalculated lazily (bottom layer first, evenly inside layer), so fill and drain don't touch tiles.
+ * When network is not dirty, sum of members' fluid amounts is always equal to network amount.
+ */
+class TankNetwork {
+
+	private TankNetwork parent = this;
+
+	private Set<TileEntityTank> members = Sets.newLinkedHashSet();
+
+	@Nullable
+	private FluidStack fluid;
+
+	private int amount;
+
+	private boolean dirty;
+
+	private boolean fragmented;
+
+	private TankNetwork() {}
+
+	private static TankNetwork create(Iterable<TileEntityTank> tanks) {
+		final TankNetwork network = new TankNetwork();
+		for (TileEntityTank tank : tanks) {
+			network.members.add(tank);
+			tank.network = network;
+
+			final FluidStack contents = tank.getStoredFluid();
+			if (contents != null && contents.amount > 0) {
+				if (network.fluid == null) network.fluid = contents.copy();
+				network.amount += contents.amount;
+			}
+		}
+		return network;
+	}
+
+	public TankNetwork find() {
+		TankNetwork node = this;
+		while (node.parent != node) {
+			node.parent = node.parent.parent;
+			node = node.parent;
+		}
+		return node;
+	}
+
+	/**
+	 * Adds tank to network and merges it with networks of already connected neighbours.
+	 */
+	public static void connect(TileEntityTank tank) {
+		if (tank.network == null) create(Arrays.asList(tank));
+
+		final BlockPos pos = tank.getPos();
+		for (EnumFacing side : EnumFacing.VALUES) {
+			final TileEntityTank neighbour = tank.getNeighourTank(pos.offset(side));
+			if (neighbour != null && neighbour.network != null && !neighbour.isInvalid())
+				union(tank.network, neighbour.network);
+		}
+	}
+
+	/**
+	 * Removes tank from network in constant time (no distribution or split - that's left for next flush, so unloading many members is cheap).
+	 * Removed tank keeps its last share, so it's saved with valid contents even when network will never tick again (chunk or world unload).
+	 */
+	public static void disconnect(TileEntityTank tank) {
+		if (tank.network == null) return;
+
+		final TankNetwork root = tank.network.find();
+		tank.network = null;
+
+		if (root.members.remove(tank)) {
+			final FluidStack contents = tank.getStoredFluid();
+			final int share = contents != null? contents.amount : 0;
+
+			// share is outdated if network changed since last distribution, so it's clamped to keep total amount unchanged
+			final int capacity = TileEntityTank.getTankCapacity();
+			final int minShare = Math.max(0, root.amount - root.members.size() * capacity);
+			final int maxShare = Math.min(capacity, root.amount);
+			final int taken = Math.min(Math.max(share, minShare), maxShare);
+			if (taken != share) tank.setStoredFluid(taken > 0? new FluidStack(root.fluid, taken) : null);
+
+			root.amount -= taken;
+			if (root.amount <= 0) root.clearFluid();
+			root.fragmented = true;
+		}
+	}
+
+	private static boolean isCompatible(TankNetwork a, TankNetwork b) {
+		return a.fluid == null || b.fluid == null || a.fluid.isFluidEqual(b.fluid);
+	}
+
+	private static void union(TankNetwork a, TankNetwork b) {
+		TankNetwork rootA = a.find();
+		TankNetwork rootB = b.find();
+		if (rootA == rootB || !isCompatible(rootA, rootB)) return;
+
+		if (rootA.members.size() < rootB.members.size()) {
+			final TankNetwork tmp = rootA;
+			rootA = rootB;
+			rootB = tmp;
+		}
+
+		rootB.parent = rootA;
+		rootA.members.addAll(rootB.members);
+		rootB.members = null;
+
+		if (rootA.fluid == null) rootA.fluid = rootB.fluid;
+		rootA.amount += rootB.amount;
+		rootA.dirty = true;
+		rootA.fragmented |= rootB.fragmented;
+	}
+
+	private void clearFluid() {
+		amount = 0;
+		fluid = null;
+	}
+
+	private int getCapacity() {
+		return members.size() * TileEntityTank.getTankCapacity();
+	}
+
+	public IFluidTankProperties[] getTankProperties() {
+		final FluidStack contents = fluid != null? new FluidStack(fluid, amount) : null;
+		return new IFluidTankProperties[] { new FluidTankProperties(contents, getCapacity()) };
+	}
+
+	public int fill(FluidStack resource, boolean doFill) {
+		if (resource == null || resource.amount <= 0) return 0;
+		if (fluid != null && !fluid.isFluidEqual(resource)) return 0;
+
+		final int filled = Math.min(resource.amount, getCapacity() - amount);
+		if (filled > 0 && doFill) {
+			if (fluid == null) fluid = resource.copy();
+			amount += filled;
+			dirty = true;
+		}
+
+		return Math.max(filled, 0);
+	}
+
+	@Nullable
+	public FluidStack drain(FluidStack resource, boolean doDrain) {
+		if (resource == null || fluid == null || !fluid.isFluidEqual(resource)) return null;
+		return drain(resource.amount, doDrain);
+	}
+
+	@Nullable
+	public FluidStack drain(int maxDrain, boolean doDrain) {
+		if (maxDrain <= 0 || fluid == null || amount <= 0) return null;
+
+		final int drained = Math.min(maxDrain, amount);
+		final FluidStack result = new FluidStack(fluid, drained);
+		if (doDrain) {
+			amount -= drained;
+			if (amount <= 0) clearFluid();
+			dirty = true;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Updates member tiles to match network state. Cheap when nothing changed, so may be called every tick.
+	 */
+	public void flush() {
+		if (dirty) distribute();
+		if (fragmented) split();
+	}
+
+	private void distribute() {
+		dirty = false;
+
+		final TIntIntMap layerCounts = new TIntIntHashMap();
+		for (TileEntityTank tank : members)
+			layerCounts.adjustOrPutValue(tank.getPos().getY(), 1, 1);
+
+		final int[] layers = layerCounts.keys();
+		Arrays.sort(layers);
+
+		final int capacity = TileEntityTank.getTankCapacity();
+		final TIntIntMap layerAmounts = new TIntIntHashMap();
+		int remaining = amount;
+		for (int layer : layers) {
+			final int layerAmount = Math.min(remaining, layerCounts.get(layer) * capacity);
+			layerAmounts.put(layer, layerAmount);
+			remaining -= layerAmount;
+		}
+
+		final TIntIntMap layerIndices = new TIntIntHashMap();
+		for (TileEntityTank tank : members) {
+			final int layer = tank.getPos().getY();
+			final int count = layerCounts.get(layer);
+			final int layerAmount = layerAmounts.get(layer);
+			final int index = layerIndices.adjustOrPutValue(layer, 1, 1) - 1;
+			final int share = layerAmount / count + (index < layerAmount % count? 1 : 0);
+			tank.setNetworkShare(fluid, share);
+		}
+	}
+
+	private void split() {
+		fragmented = false;
+
+		final Map<BlockPos, TileEntityTank> remaining = Maps.newHashMap();
+		for (TileEntityTank tank : members)
+			remaining.put(tank.getPos(), tank);
+
+		members = null;
+
+		while (!remaining.isEmpty()) {
+			final TileEntityTank start = remaining.values().iterator().next();
+			remaining.remove(start.getPos());
+
+			final List<TileEntityTank> component = Lists.newArrayList(start);
+			for (int i = 0; i < component.size(); i++) {
+				final BlockPos pos = component.get(i).getPos();
+				for (EnumFacing side : EnumFacing.VALUES) {
+					final TileEntityTank neighbour = remaining.remove(pos.offset(side));
+					if (neighbour != null) component.add(neighbour);
+				}
+			}
+
+			// flush distributes before split, so members' contents are up to date and parts don't need redistribution
+			create(component);
+		}
+	}
+}
@@ -23,6 +23,7 @@ import net.minecraftforge.oredict.OreDictionary;
 import openblocks.client.gui.GuiAutoEnchantmentTable;
 import openblocks.common.FluidXpUtils;
 import openblocks.common.FluidXpUtils.IFluidXpConverter;
+import openblocks.common.MachineSyncTracker;
 import openblocks.common.container.ContainerAutoEnchantmentTable;
 import openblocks.common.tileentity.TileEntityAutoEnchantmentTable.AutoSlots;
 import openblocks.rpc.ILevelChanger;
@@ -36,7 +37,6 @@ import openmods.gui.misc.IConfigurableGuiSlots;
 import openmods.include.IncludeInterface;
 import openmods.inventory.GenericInventory;
 import openmods.inventory.IInventoryProvider;
-import openmods.inventory.ItemMover;
 import openmods.inventory.TileEntityInventory;
 import openmods.liquids.SidedFluidCapabilityWrapper;
 import openmods.sync.SyncMap;
@@ -120,6 +120,11 @@ public class TileEntityAutoEnchantmentTable extends SyncedTileEntity implements
 
 	private final SidedItemHandlerAdapter itemHandlerCapability = new SidedItemHandlerAdapter(inventory.getHandler());
 
+	private final MachineSyncTracker.Tracker syncTracker = MachineSyncTracker.instance.createTracker("auto_enchantment_table", 5,
+			tank, inputSides, lapisSides, outputSides, xpSides, automaticSlots, powerLimit, availablePower, selectedLevel);
+
+	private final NeighbourItemHandlers neighbourItems = new NeighbourItemHandlers(this);
+
 	private static final Random bookRand = new Random();
 
 	private static final Random seedGenerator = new Random();
@@ -279,23 +284,21 @@ public class TileEntityAutoEnchantmentTable extends SyncedTileEntity implements
 				availablePower.set(power);
 			}
 
-			final ItemMover mover = new ItemMover(world, pos).breakAfterFirstTry().randomizeSides().setMaxSize(1);
-
 			if (shouldAutoOutput() && hasStack(Slots.output)) {
-				mover.setSides(outputSides.getValue()).pushFromSlot(inventory.getHandler(), Slots.output.ordinal());
+				neighbourItems.pushFromSlot(inventory.getHandler(), Slots.output.ordinal(), outputSides.getValue(), 1);
 			}
 
 			if (shouldAutoInputTool() && hasSpace(Slots.tool)) {
-				mover.setSides(inputSides.getValue()).pullToSlot(inventory.getHandler(), Slots.tool.ordinal());
+				neighbourItems.pullToSlot(inventory.getHandler(), Slots.tool.ordinal(), inputSides.getValue(), 1);
 			}
 
 			if (shouldAutoInputLapis() && hasSpace(Slots.lapis)) {
-				mover.setSides(lapisSides.getValue()).pullToSlot(inventory.getHandler(), Slots.lapis.ordinal());
+				neighbourItems.pullToSlot(inventory.getHandler(), Slots.lapis.ordinal(), lapisSides.getValue(), 1);
 			}
 
 			tryEnchantItem();
 
-			sync();
+			if (syncTracker.shouldSync(world)) sync();
 		}
 	}
 
@@ -482,9 +485,22 @@ public class TileEntityAutoEnchantmentTable extends SyncedTileEntity implements
 		this.needsTankUpdate = true;
 	}
 
+	@Override
+	public void invalidate() {
+		super.invalidate();
+		neighbourItems.invalidate();
+	}
+
+	@Override
+	public void onChunkUnload() {
+		super.onChunkUnload();
+		neighbourItems.invalidate();
+	}
+
 	@Override
 	public void onNeighbourChanged(BlockPos neighbourPos, Block neighbourBlock) {
 		this.needsTankUpdate = true;
+		neighbourItems.invalidate();
 	}
 
 }
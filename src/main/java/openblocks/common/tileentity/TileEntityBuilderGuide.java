@@ -1,9 +1,16 @@
 package openblocks.common.tileentity;
 
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Sets;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import javax.annotation.Nonnull;
 import net.minecraft.block.Block;
-import net.minecraft.block.state.IBlockState;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.init.Blocks;
 import net.minecraft.item.Item;
@@ -14,7 +21,17 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.EnumHand;
 import net.minecraft.util.EnumParticleTypes;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.event.world.BlockEvent;
+import net.minecraftforge.event.world.ExplosionEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import openblocks.common.FillJobQueue;
 import openblocks.rpc.IGuideAnimationTrigger;
+import openblocks.shapes.CoordShape;
+import openblocks.shapes.ICoordFilter;
+import openblocks.shapes.UnfilledCoords;
 import openmods.shapes.IShapeable;
 import openmods.utils.render.GeometryUtils;
 
@@ -29,6 +46,12 @@ public class TileEntityBuilderGuide extends TileEntityGuide implements IGuideAni
 
 	private int ticks;
 
+	private FillJobQueue.Job fillJob;
+
+	private UnfilledCoords unfilledCoords;
+
+	private long[] trackedChunks;
+
 	@Override
 	public boolean onItemUse(EntityPlayerMP player, @Nonnull ItemStack heldStack, EnumFacing side, float hitX, float hitY, float hitZ) {
 		if (active.get()) {
@@ -58,37 +81,181 @@ public class TileEntityBuilderGuide extends TileEntityGuide implements IGuideAni
 
 	private void creativeReplaceBlocks(EntityPlayerMP player, ItemStack heldStack, Block block, int blockMeta, EnumFacing side, float hitX, float hitY, float hitZ) {
 		// TODO verify
-		for (BlockPos coord : getShapeSafe().getCoords()) {
-			final BlockPos clickPos = pos.add(coord);
-			final IBlockState state = block.getStateForPlacement(world, clickPos, side, hitX, hitY, hitZ, blockMeta, player, EnumHand.MAIN_HAND);
-			world.setBlockState(clickPos, state);
+		cancelFill();
+		fillJob = FillJobQueue.instance.submit((WorldServer)world, player, pos, getShapeSafe(),
+				clickPos -> block.getStateForPlacement(world, clickPos, side, hitX, hitY, hitZ, blockMeta, player, EnumHand.MAIN_HAND));
+	}
+
+	private void cancelFill() {
+		if (fillJob != null) {
+			fillJob.cancel();
+			fillJob = null;
 		}
 	}
 
 	@Override
-	protected boolean canAddCoord(int x, int y, int z) {
-		// create safe space around builder, so it's always accesible
-		return Math.abs(x) > 1 || Math.abs(y) > 1 || Math.abs(z) > 1;
+	public void invalidate() {
+		super.invalidate();
+		cancelFill();
+		stopTracking();
+	}
+
+	@Override
+	public void onChunkUnload() {
+		super.onChunkUnload();
+		cancelFill();
+		stopTracking();
+	}
+
+	// create safe space around builder, so it's always accesible
+	private static final ICoordFilter EXCLUDE_SAFE_SPACE = (x, y, z) -> Math.abs(x) > 1 || Math.abs(y) > 1 || Math.abs(z) > 1;
+
+	@Override
+	protected ICoordFilter getCoordFilter() {
+		return EXCLUDE_SAFE_SPACE;
 	}
 
 	private boolean survivalPlaceBlocks(EntityPlayerMP player, @Nonnull ItemStack heldItem, Block block, int blockMeta, EnumFacing side, float hitX, float hitY, float hitZ) {
-		for (BlockPos relCoord : getShapeSafe().getCoords()) {
-			BlockPos absPos = pos.add(relCoord);
-			if (world.isBlockLoaded(absPos) && world.isAirBlock(absPos) && absPos.getY() >= 0 && absPos.getY() < 256) {
-				final EnumActionResult placeResult = player.interactionManager.processRightClickBlock(player, world, heldItem, EnumHand.MAIN_HAND, absPos, side, hitX, hitY, hitZ);
-
-				if (placeResult == EnumActionResult.SUCCESS) {
-					final int stateId = Block.getStateId(world.getBlockState(absPos));
-					createServerRpcProxy(IGuideAnimationTrigger.class).trigger(absPos, stateId);
-					return true;
-				}
+		final UnfilledCoords unfilled = getUnfilledCoords();
+		if (tryPlaceBlock(unfilled, player, heldItem, side, hitX, hitY, hitZ)) return true;
+
+		if (unfilled.isEmpty()) {
+			// some removals may have been missed (not every change fires events), so rescan everything before giving up
+			unfilled.markAllUnfilled();
+			return tryPlaceBlock(unfilled, player, heldItem, side, hitX, hitY, hitZ);
+		}
+
+		return false;
+	}
+
+	private boolean tryPlaceBlock(UnfilledCoords unfilled, EntityPlayerMP player, @Nonnull ItemStack heldItem, EnumFacing side, float hitX, float hitY, float hitZ) {
+		final CoordShape shape = unfilled.getShape();
+		for (int i = unfilled.nextCandidate(0); i >= 0; i = unfilled.nextCandidate(i + 1)) {
+			final BlockPos absPos = pos.add(shape.getX(i), shape.getY(i), shape.getZ(i));
+			if (absPos.getY() < 0 || absPos.getY() >= 256) {
+				// will never be placeable
+				unfilled.markFilled(i);
+				continue;
 			}
 
+			if (!world.isBlockLoaded(absPos)) continue;
+
+			if (!world.isAirBlock(absPos)) {
+				unfilled.markFilled(i);
+				continue;
+			}
+
+			final EnumActionResult placeResult = player.interactionManager.processRightClickBlock(player, world, heldItem, EnumHand.MAIN_HAND, absPos, side, hitX, hitY, hitZ);
+
+			if (placeResult == EnumActionResult.SUCCESS) {
+				unfilled.markFilled(i);
+				final int stateId = Block.getStateId(world.getBlockState(absPos));
+				createServerRpcProxy(IGuideAnimationTrigger.class).trigger(absPos, stateId);
+				return true;
+			}
 		}
 
 		return false;
 	}
 
+	private UnfilledCoords getUnfilledCoords() {
+		final CoordShape shape = getShapeSafe();
+		if (unfilledCoords == null || unfilledCoords.getShape() != shape) {
+			stopTracking();
+			unfilledCoords = new UnfilledCoords(shape);
+			startTracking(shape);
+		}
+
+		return unfilledCoords;
+	}
+
+	private void startTracking(CoordShape shape) {
+		final TLongSet chunks = new TLongHashSet();
+		final int baseX = pos.getX();
+		final int baseZ = pos.getZ();
+		for (int i = 0; i < shape.size(); i++)
+			chunks.add(ChunkPos.asLong((baseX + shape.getX(i)) >> 4, (baseZ + shape.getZ(i)) >> 4));
+
+		final TLongObjectMap<Set<TileEntityBuilderGuide>> worldGuides = getTrackedGuides(world);
+		chunks.forEach(key -> {
+			Set<TileEntityBuilderGuide> chunkGuides = worldGuides.get(key);
+			if (chunkGuides == null) {
+				chunkGuides = Sets.newIdentityHashSet();
+				worldGuides.put(key, chunkGuides);
+			}
+			chunkGuides.add(this);
+			return true;
+		});
+
+		trackedChunks = chunks.toArray();
+	}
+
+	private void stopTracking() {
+		unfilledCoords = null;
+		if (trackedChunks == null) return;
+
+		final TLongObjectMap<Set<TileEntityBuilderGuide>> worldGuides = trackedGuides.get(world);
+		if (worldGuides != null) {
+			for (long key : trackedChunks) {
+				final Set<TileEntityBuilderGuide> chunkGuides = worldGuides.get(key);
+				if (chunkGuides != null) {
+					chunkGuides.remove(this);
+					if (chunkGuides.isEmpty()) worldGuides.remove(key);
+				}
+			}
+		}
+
+		trackedChunks = null;
+	}
+
+	private void onBlockChanged(BlockPos changedPos) {
+		if (unfilledCoords != null) unfilledCoords.markUnfilled(changedPos.getX() - pos.getX(), changedPos.getY() - pos.getY(), changedPos.getZ() - pos.getZ());
+	}
+
+	// guides indexed by chunks covered by their shapes, so unrelated block changes are cheap
+	private static final Map<World, TLongObjectMap<Set<TileEntityBuilderGuide>>> trackedGuides = new MapMaker().weakKeys().makeMap();
+
+	private static TLongObjectMap<Set<TileEntityBuilderGuide>> getTrackedGuides(World world) {
+		TLongObjectMap<Set<TileEntityBuilderGuide>> result = trackedGuides.get(world);
+		if (result == null) {
+			result = new TLongObjectHashMap<>();
+			trackedGuides.put(world, result);
+		}
+
+		return result;
+	}
+
+	public static class BlockChangeListener {
+		private static void notifyGuides(World world, BlockPos changedPos) {
+			if (world.isRemote) return;
+
+			final TLongObjectMap<Set<TileEntityBuilderGuide>> worldGuides = trackedGuides.get(world);
+			if (worldGuides != null) {
+				final Set<TileEntityBuilderGuide> guides = worldGuides.get(ChunkPos.asLong(changedPos.getX() >> 4, changedPos.getZ() >> 4));
+				if (guides != null) {
+					for (TileEntityBuilderGuide guide : guides)
+						guide.onBlockChanged(changedPos);
+				}
+			}
+		}
+
+		@SubscribeEvent
+		public void onNeighbourNotify(BlockEvent.NeighborNotifyEvent evt) {
+			notifyGuides(evt.getWorld(), evt.getPos());
+		}
+
+		@SubscribeEvent
+		public void onBlockBreak(BlockEvent.BreakEvent evt) {
+			notifyGuides(evt.getWorld(), evt.getPos());
+		}
+
+		@SubscribeEvent
+		public void onExplosion(ExplosionEvent.Detonate evt) {
+			for (BlockPos changedPos : evt.getAffectedBlocks())
+				notifyGuides(evt.getWorld(), changedPos);
+		}
+	}
+
 	private boolean isInFillMode() {
 		return world.getBlockState(pos.up()).getBlock() == Blocks.OBSIDIAN;
 	}
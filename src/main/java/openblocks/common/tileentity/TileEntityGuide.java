@@ -1,19 +1,16 @@
 package openblocks.common.tileentity;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
-import com.google.common.primitives.Doubles;
-import com.google.common.primitives.Ints;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 import net.minecraft.block.Block;
 import net.minecraft.block.properties.IProperty;
@@ -31,8 +28,11 @@ import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 import openblocks.Config;
 import openblocks.common.item.ItemGuide;
+import openblocks.shapes.AsyncShapeGenerator;
 import openblocks.shapes.CoordShape;
 import openblocks.shapes.GuideShape;
+import openblocks.shapes.ICoordFilter;
+import openblocks.shapes.ShapeParams;
 import openmods.Log;
 import openmods.api.IAddAwareTile;
 import openmods.api.INeighbourAwareTile;
@@ -40,8 +40,6 @@ import openmods.block.OpenBlock;
 import openmods.colors.ColorMeta;
 import openmods.geometry.HalfAxis;
 import openmods.geometry.Orientation;
-import openmods.shapes.IShapeGenerator;
-import openmods.shapes.IShapeable;
 import openmods.sync.ISyncListener;
 import openmods.sync.ISyncableObject;
 import openmods.sync.SyncMap;
@@ -52,7 +50,6 @@ import openmods.sync.SyncableVarInt;
 import openmods.sync.drops.DroppableTileEntity;
 import openmods.sync.drops.StoreOnDrop;
 import openmods.utils.CollectionUtils;
-import openmods.utils.MathUtils;
 import openperipheral.api.adapter.Asynchronous;
 import openperipheral.api.adapter.method.Alias;
 import openperipheral.api.adapter.method.Arg;
@@ -125,47 +122,15 @@ public class TileEntityGuide extends DroppableTileEntity implements ISyncListene
 		COMMANDS = commands.build();
 	}
 
-	private static final Comparator<BlockPos> COMPARATOR = (o1, o2) -> {
-		{
-			// first, go from bottom to top
-			int result1 = Ints.compare(o1.getX(), o2.getX());
-			if (result1 != 0) return result1;
-		}
-
-		{
-			// then sort by angle, to make placement more intuitive
-			final double angle1 = Math.atan2(o1.getZ(), o1.getX());
-			final double angle2 = Math.atan2(o2.getZ(), o2.getX());
-
-			int result2 = Doubles.compare(angle1, angle2);
-			if (result2 != 0) return result2;
-		}
-
-		{
-			// then sort by distance, far ones first
-			final double length1 = MathUtils.lengthSq(o1.getX(), o1.getZ());
-			final double length2 = MathUtils.lengthSq(o2.getX(), o2.getZ());
-
-			int result3 = Doubles.compare(length2, length1);
-			if (result3 != 0) return result3;
-		}
-
-		// then sort by x and z to make all unique BlockPosinates are included
-		{
-			int result4 = Ints.compare(o1.getX(), o2.getX());
-			if (result4 != 0) return result4;
-		}
+	private static final ICoordFilter EXCLUDE_CENTER = (x, y, z) -> (x != 0) || (y != 0) || (z != 0);
 
-		{
-			int result5 = Ints.compare(o1.getZ(), o2.getZ());
-			return result5;
-		}
-	};
-
-	private CoordShape shape;
+	private volatile CoordShape shape;
 	private CoordShape previousShape;
 	private CoordShape toDeleteShape;
 
+	private Future<CoordShape> pendingShape;
+	private final List<Consumer<CoordShape>> shapeListeners = Lists.newArrayList();
+
 	private float timeSinceChange = 0;
 	private AxisAlignedBB renderAABB;
 
@@ -291,8 +256,9 @@ public class TileEntityGuide extends DroppableTileEntity implements ISyncListene
 	@Asynchronous
 	@ScriptCallable(returnTypes = ReturnType.NUMBER)
 	public int getCount() {
-		if (shape == null) recreateShape();
-		return shape.size();
+		final CoordShape shape = this.shape;
+		// called outside server thread, so don't touch shape fields
+		return shape != null? shape.size() : AsyncShapeGenerator.generate(createShapeParams()).size();
 	}
 
 	@Asynchronous
@@ -360,7 +326,7 @@ public class TileEntityGuide extends DroppableTileEntity implements ISyncListene
 	}
 
 	private void displayBlockCount(EntityPlayer player) {
-		player.sendMessage(new TextComponentTranslation("openblocks.misc.total_blocks", shape.size()));
+		whenShapeReady(shape -> player.sendMessage(new TextComponentTranslation("openblocks.misc.total_blocks", shape.size())));
 	}
 
 	public boolean shouldRender() {
@@ -369,6 +335,8 @@ public class TileEntityGuide extends DroppableTileEntity implements ISyncListene
 
 	@Override
 	public void update() {
+		if (pendingShape != null && pendingShape.isDone()) collectPendingShape();
+
 		if (world.isRemote) {
 			if (timeSinceChange < 1.0) {
 				timeSinceChange = (float)Math.min(1.0f, timeSinceChange + 0.1);
@@ -381,40 +349,60 @@ public class TileEntityGuide extends DroppableTileEntity implements ISyncListene
 	}
 
 	private void recreateShape() {
+		// previous task is no longer relevant - if not yet started, it will be skipped
+		if (pendingShape != null) pendingShape.cancel(false);
+		pendingShape = AsyncShapeGenerator.submit(createShapeParams());
+		// cached shapes are available immediately
+		if (pendingShape.isDone()) collectPendingShape();
+	}
+
+	private void collectPendingShape() {
+		final Future<CoordShape> task = pendingShape;
+		pendingShape = null;
+
+		try {
+			swapShape(task.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Log.warn(e.getCause(), "Failed to generate shape for guide %s", this);
+		}
+
+		if (shape != null) notifyShapeListeners();
+	}
+
+	private void swapShape(CoordShape newShape) {
 		toDeleteShape = previousShape;
 		previousShape = shape;
-		shape = new CoordShape(generateShape());
+		shape = newShape;
 		renderAABB = null;
+		if (world != null && world.isRemote) timeSinceChange = 0;
 	}
 
-	private List<BlockPos> generateShape() {
-		final IShapeGenerator generator = getCurrentMode().generator;
-
-		final Set<BlockPos> uniqueResults = Sets.newHashSet();
-		final IShapeable collector = (x, y, z) -> {
-			if (canAddCoord(x, y, z)) uniqueResults.add(new BlockPos(x, y, z));
-		};
-		generator.generateShape(-negX.get(), -negY.get(), -negZ.get(), posX.get(), posY.get(), posZ.get(), collector);
-
-		final List<BlockPos> sortedResults = Lists.newArrayList(uniqueResults);
-		Collections.sort(sortedResults, COMPARATOR);
-
-		final List<BlockPos> rotatedResult = Lists.newArrayList();
-		final Orientation orientation = getOrientation();
+	private void whenShapeReady(Consumer<CoordShape> listener) {
+		if (pendingShape == null) listener.accept(getShapeSafe());
+		else shapeListeners.add(listener);
+	}
 
-		for (BlockPos c : sortedResults) {
-			final int tx = orientation.transformX(c.getX(), c.getY(), c.getZ());
-			final int ty = orientation.transformY(c.getX(), c.getY(), c.getZ());
-			final int tz = orientation.transformZ(c.getX(), c.getY(), c.getZ());
+	private void notifyShapeListeners() {
+		if (shapeListeners.isEmpty()) return;
 
-			rotatedResult.add(new BlockPos(tx, ty, tz));
-		}
+		final List<Consumer<CoordShape>> listeners = Lists.newArrayList(shapeListeners);
+		shapeListeners.clear();
+		for (Consumer<CoordShape> listener : listeners)
+			listener.accept(shape);
+	}
 
-		return ImmutableList.copyOf(rotatedResult);
+	protected ShapeParams createShapeParams() {
+		return new ShapeParams(getCurrentMode(),
+				negX.get(), negY.get(), negZ.get(),
+				posX.get(), posY.get(), posZ.get(),
+				getOrientation(),
+				getCoordFilter());
 	}
 
-	protected boolean canAddCoord(int x, int y, int z) {
-		return (x != 0) || (y != 0) || (z != 0);
+	protected ICoordFilter getCoordFilter() {
+		return EXCLUDE_CENTER;
 	}
 
 	public CoordShape getShape() {
@@ -455,26 +443,32 @@ public class TileEntityGuide extends DroppableTileEntity implements ISyncListene
 		double maxZ = 1;
 
 		if (shape != null) {
-			for (BlockPos c : shape.getCoords()) {
+			// shape never exceeds box passed to generator, so rotated corners of that box are enough
+			final ShapeParams params = shape.getParams();
+			final Orientation orientation = params.orientation;
+			for (int corner = 0; corner < 8; corner++) {
+				final int cx = (corner & 1) == 0? -params.negX : params.posX;
+				final int cy = (corner & 2) == 0? -params.negY : params.posY;
+				final int cz = (corner & 4) == 0? -params.negZ : params.posZ;
+
 				{
-					final int x = c.getX();
+					final int x = orientation.transformX(cx, cy, cz);
 					if (maxX < x) maxX = x;
 					if (minX > x) minX = x;
 				}
 
 				{
-					final int y = c.getY();
+					final int y = orientation.transformY(cx, cy, cz);
 					if (maxY < y) maxY = y;
 					if (minY > y) minY = y;
 				}
 
 				{
-					final int z = c.getZ();
+					final int z = orientation.transformZ(cx, cy, cz);
 					if (maxZ < z) maxZ = z;
 					if (minZ > z) minZ = z;
 				}
 			}
-
 		}
 
 		return new AxisAlignedBB(pos.add(minX, minY, minZ), pos.add(maxX, maxY, maxZ));
@@ -525,7 +519,6 @@ public class TileEntityGuide extends DroppableTileEntity implements ISyncListene
 				changes.contains(posX) || changes.contains(posY) || changes.contains(posZ) ||
 				changes.contains(mode)) {
 			recreateShape();
-			timeSinceChange = 0;
 		}
 	}
 
@@ -553,10 +546,32 @@ public class TileEntityGuide extends DroppableTileEntity implements ISyncListene
 	}
 
 	protected CoordShape getShapeSafe() {
-		if (shape == null) recreateShape();
+		// waits for pending task, since caller needs up-to-date shape
+		if (pendingShape != null) collectPendingShape();
+		if (shape == null) swapShape(AsyncShapeGenerator.generate(createShapeParams()));
 		return shape;
 	}
 
+	@Override
+	public void invalidate() {
+		super.invalidate();
+		cancelPendingShape();
+	}
+
+	@Override
+	public void onChunkUnload() {
+		super.onChunkUnload();
+		cancelPendingShape();
+	}
+
+	private void cancelPendingShape() {
+		if (pendingShape != null) {
+			pendingShape.cancel(false);
+			pendingShape = null;
+		}
+		shapeListeners.clear();
+	}
+
 	public boolean onItemUse(EntityPlayerMP player, @Nonnull ItemStack heldStack, EnumFacing side, float hitX, float hitY, float hitZ) {
 		Set<ColorMeta> colors = ColorMeta.fromStack(heldStack);
 		if (!colors.isEmpty()) {
@@ -193,6 +193,11 @@ public class TileEntityProjector extends SyncedTileEntity implements IHasGui, II
 		if (world != null || mapId < 0) MapDataManager.instance.markDataUpdated(world, mapId);
 	}
 
+	public void markMapPixelDirty(int column, int row) {
+		int mapId = this.mapId.get();
+		if (world != null && mapId >= 0) MapDataManager.instance.markTilesUpdated(world, mapId, HeightMapData.getTileMask(column, row, column, row));
+	}
+
 	@Override
 	@IncludeInterface
 	public IInventory getInventory() {
@@ -40,6 +40,10 @@ import openblocks.client.renderer.tileentity.tank.NeighbourMap;
 import openblocks.client.renderer.tileentity.tank.TankRenderLogic;
 import openblocks.common.FluidXpUtils;
 import openblocks.common.FluidXpUtils.IFluidXpConverter;
+import openblocks.common.NotificationCoalescer;
+import openblocks.common.NotificationCoalescer.INotifiable;
+import openblocks.common.TankLevelSyncManager;
+import openblocks.common.TileSleepManager;
 import openblocks.common.item.ItemTankBlock;
 import openmods.api.IActivateAwareTile;
 import openmods.api.ICustomHarvestDrops;
@@ -55,7 +59,7 @@ import openmods.tileentity.SyncedTileEntity;
 import openmods.utils.EnchantmentUtils;
 import openmods.utils.ItemUtils;
 
-public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTile, IPlaceAwareTile, INeighbourAwareTile, ICustomHarvestDrops, ITickable {
+public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTile, IPlaceAwareTile, INeighbourAwareTile, ICustomHarvestDrops, ITickable, INotifiable {
 
 	public static class BucketFillHandler extends ContainerBucketFillHandler {
 		@Override
@@ -77,24 +81,32 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 
 		@Override
 		public void onSync(Set<ISyncableObject> changes) {
-			if (changes.contains(tank)) {
-				final FluidStack fluidStack = tank.getFluid();
-				if (!isSameFluid(fluidStack)) {
-					world.markBlockRangeForRenderUpdate(pos, pos);
-					prevFluidStack = fluidStack;
-
-					int luminosity = fluidStack != null? fluidStack.getFluid().getLuminosity(fluidStack) : 0;
-					if (luminosity != prevLuminosity) {
-						world.checkLight(pos);
-						prevLuminosity = luminosity;
-					}
-				}
+			if (changes.contains(tank)) onTankUpdate();
+		}
 
-				renderLogic.updateFluid(fluidStack);
+		public void onTankUpdate() {
+			final FluidStack fluidStack = tank.getFluid();
+			if (!isSameFluid(fluidStack)) {
+				// connections to neighbours depend on fluid type on both sides
+				invalidateModelState();
+				updateNeighbours();
+				world.markBlockRangeForRenderUpdate(pos, pos);
+				prevFluidStack = fluidStack;
+
+				int luminosity = fluidStack != null? fluidStack.getFluid().getLuminosity(fluidStack) : 0;
+				if (luminosity != prevLuminosity) {
+					world.checkLight(pos);
+					prevLuminosity = luminosity;
+				}
 			}
+
+			renderLogic.updateFluid(fluidStack);
 		}
 	}
 
+	// created during sync map initialization (i.e. in superclass constructor), so it can't have initializer
+	private RenderUpdateListeners renderUpdateListeners;
+
 	private final TankRenderLogic renderLogic;
 
 	private boolean needsTankUpdate;
@@ -104,13 +116,39 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 		super.validate();
 
 		needsTankUpdate = true;
-		if (world.isRemote) renderLogic.initialize(world, pos);
+		if (world.isRemote) {
+			renderLogic.initialize(world, pos);
+			updateNeighbours();
+		}
 	}
 
 	@Override
 	public void invalidate() {
+		TankNetwork.disconnect(this);
+		invalidateColumn();
 		super.invalidate();
-		if (world.isRemote) renderLogic.invalidateConnections();
+		if (world.isRemote) {
+			renderLogic.invalidateConnections();
+			updateNeighbours();
+		}
+	}
+
+	@Override
+	public void onChunkUnload() {
+		super.onChunkUnload();
+		TankNetwork.disconnect(this);
+		invalidateColumn();
+		if (world.isRemote) {
+			renderLogic.invalidateConnections();
+			updateNeighbours();
+		}
+	}
+
+	private void invalidateColumn() {
+		if (column != null) {
+			column.invalidate();
+			column = null;
+		}
 	}
 
 	protected TileEntityTank getNeighourTank(BlockPos pos) {
@@ -122,7 +160,6 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 	}
 
 	private static final int SYNC_THRESHOLD = 8;
-	private static final int UPDATE_THRESHOLD = 20;
 
 	private SyncableTank tank;
 
@@ -132,20 +169,42 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 
 	private boolean needsSync;
 
-	private int ticksSinceLastUpdate = hashCode() % UPDATE_THRESHOLD;
+	private boolean notificationQueued;
+
+	private int lastComparatorLevel = -1;
+
+	TankNetwork network;
+
+	private boolean needsNetworkConnect;
+
+	TankColumn column;
+
+	private boolean sleeping;
 
-	private boolean needsUpdate;
+	private long sleepStart;
 
 	private final IFluidHandler tankCapabilityWrapper = new IFluidHandler() {
 
 		@Override
 		public IFluidTankProperties[] getTankProperties() {
+			if (network != null) return network.find().getTankProperties();
 			return tank.getTankProperties();
 		}
 
 		@Override
 		public int fill(FluidStack resource, boolean doFill) {
 			if (resource == null) return 0;
+			if (network != null) {
+				final int filled = network.find().fill(resource, doFill);
+				if (filled > 0 && doFill) wakeUp();
+				return filled;
+			}
+
+			if (!doFill) {
+				final int space = TankColumn.get(TileEntityTank.this).getAvailableSpace(TileEntityTank.this, resource);
+				if (space >= 0) return Math.min(space, resource.amount);
+			}
+
 			FluidStack copy = resource.copy();
 			fillColumn(copy, doFill);
 
@@ -156,6 +215,7 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 		@Nullable
 		public FluidStack drain(int maxDrain, boolean doDrain) {
 			if (maxDrain <= 0) return null;
+			if (network != null) return onNetworkDrain(network.find().drain(maxDrain, doDrain), doDrain);
 
 			FluidStack contents = tank.getFluid();
 			if (contents == null || contents.amount <= 0) return null;
@@ -163,6 +223,14 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 			FluidStack needed = contents.copy();
 			needed.amount = maxDrain;
 
+			if (!doDrain) {
+				final int available = TankColumn.get(TileEntityTank.this).getAvailableContents(TileEntityTank.this, needed);
+				if (available >= 0) {
+					needed.amount = Math.min(available, maxDrain);
+					return needed;
+				}
+			}
+
 			drainFromColumn(needed, doDrain);
 
 			needed.amount = maxDrain - needed.amount;
@@ -173,8 +241,18 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 		@Nullable
 		public FluidStack drain(FluidStack resource, boolean doDrain) {
 			if (resource == null) return null;
+			if (network != null) return onNetworkDrain(network.find().drain(resource, doDrain), doDrain);
 
 			FluidStack needed = resource.copy();
+
+			if (!doDrain) {
+				final int available = TankColumn.get(TileEntityTank.this).getAvailableContents(TileEntityTank.this, needed);
+				if (available >= 0) {
+					needed.amount = Math.min(available, resource.amount);
+					return needed;
+				}
+			}
+
 			drainFromColumn(needed, doDrain);
 
 			needed.amount = resource.amount - needed.amount;
@@ -182,6 +260,11 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 		}
 	};
 
+	private FluidStack onNetworkDrain(FluidStack drained, boolean doDrain) {
+		if (drained != null && doDrain) wakeUp();
+		return drained;
+	}
+
 	public TileEntityTank() {
 		renderLogic = new TankRenderLogic(tank);
 	}
@@ -190,7 +273,8 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 	protected void onSyncMapCreate(SyncMap syncMap) {
 		syncMap.addSyncListener(changes -> ticksSinceLastSync = 0);
 
-		syncMap.addUpdateListener(new RenderUpdateListeners());
+		renderUpdateListeners = new RenderUpdateListeners();
+		syncMap.addUpdateListener(renderUpdateListeners);
 	}
 
 	@Override
@@ -199,9 +283,17 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 	}
 
 	public double getFluidRatio() {
+		flushNetwork();
 		return (double)tank.getFluidAmount() / (double)tank.getCapacity();
 	}
 
+	public int getComparatorLevel() {
+		double value = getFluidRatio() * 15;
+		if (value == 0) return 0;
+		int trunc = MathHelper.floor(value);
+		return Math.max(trunc, 1);
+	}
+
 	public static int getTankCapacity() {
 		return Fluid.BUCKET_VOLUME * Config.bucketsPerTank;
 	}
@@ -224,9 +316,36 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 		return renderLogic.getTankConnections();
 	}
 
+	private static class CachedModelState {
+		private final int version;
+
+		private final VariantModelState state;
+
+		public CachedModelState(int version, VariantModelState state) {
+			this.version = version;
+			this.state = state;
+		}
+	}
+
+	// model state is requested from chunk rebuild threads, so version is used to discard states calculated during invalidation
+	private volatile int modelStateVersion;
+
+	private volatile CachedModelState cachedModelState;
+
+	private void invalidateModelState() {
+		modelStateVersion++;
+	}
+
 	public VariantModelState getModelState() {
-		// TODO maybe cache?
-		return new NeighbourMap(world, pos, tank.getFluid()).getState();
+		if (world == null) return VariantModelState.EMPTY;
+
+		final int version = modelStateVersion;
+		final CachedModelState cached = cachedModelState;
+		if (cached != null && cached.version == version) return cached.state;
+
+		final VariantModelState state = new NeighbourMap(world, pos, tank.getFluid()).getState();
+		cachedModelState = new CachedModelState(version, state);
+		return state;
 	}
 
 	public boolean accepts(FluidStack liquid) {
@@ -242,10 +361,12 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 	}
 
 	public IFluidTank getTank() {
+		flushNetwork();
 		return tank;
 	}
 
 	public NBTTagCompound getItemNBT() {
+		flushNetwork();
 		NBTTagCompound nbt = new NBTTagCompound();
 		tank.writeToNBT(nbt);
 		return nbt;
@@ -255,6 +376,49 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 	public void onNeighbourChanged(BlockPos neighbourPos, Block neighbourBlock) {
 		forceUpdate = true;
 		needsTankUpdate = true;
+		needsNetworkConnect = true;
+		if (column != null) column.checkNeighbour(this, neighbourPos);
+		wakeUp();
+	}
+
+	@Override
+	public NBTTagCompound writeToNBT(NBTTagCompound tag) {
+		flushNetwork();
+		return super.writeToNBT(tag);
+	}
+
+	private void flushNetwork() {
+		if (network != null) network.find().flush();
+	}
+
+	/**
+	 * Client side only: applies contents received via {@link TankLevelSyncManager}.
+	 */
+	public void setSyncedFluid(@Nullable FluidStack fluid) {
+		tank.setFluid(fluid);
+		renderUpdateListeners.onTankUpdate();
+	}
+
+	@Nullable
+	FluidStack getStoredFluid() {
+		return tank.getFluid();
+	}
+
+	/**
+	 * Sets contents without any notifications (used when tank leaves network, possibly during chunk unload).
+	 */
+	void setStoredFluid(@Nullable FluidStack fluid) {
+		tank.setFluid(fluid);
+	}
+
+	void setNetworkShare(@Nullable FluidStack fluid, int amount) {
+		final FluidStack current = tank.getFluid();
+		final int currentAmount = current != null? current.amount : 0;
+		if (currentAmount == amount && (amount == 0 || current.isFluidEqual(fluid))) return;
+
+		tank.setFluid(amount > 0? new FluidStack(fluid, amount) : null);
+		tankChanged();
+		needsSync = true;
 	}
 
 	@Override
@@ -263,6 +427,8 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 
 		if (itemTag != null && itemTag.hasKey(ItemTankBlock.TANK_TAG)) {
 			tank.readFromNBT(itemTag.getCompoundTag(ItemTankBlock.TANK_TAG));
+			markColumnContentsChanged();
+			wakeUp();
 		}
 	}
 
@@ -339,9 +505,20 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 	@Override
 	public void update() {
 		ticksSinceLastSync++;
-		ticksSinceLastUpdate++;
 
-		if (Config.shouldTanksUpdate && !world.isRemote && forceUpdate) {
+		if (Config.useTankNetworks && !world.isRemote) {
+			if (network == null || needsNetworkConnect) {
+				TankNetwork.connect(this);
+				needsNetworkConnect = false;
+			}
+
+			network.find().flush();
+
+			if (needsTankUpdate) {
+				tank.updateNeighbours(world, pos);
+				needsTankUpdate = false;
+			}
+		} else if (Config.shouldTanksUpdate && !world.isRemote && forceUpdate) {
 			if (needsTankUpdate) {
 				tank.updateNeighbours(world, pos);
 				needsTankUpdate = false;
@@ -365,16 +542,49 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 
 		if (needsSync && !world.isRemote && ticksSinceLastSync > SYNC_THRESHOLD) {
 			needsSync = false;
-			sync();
+			if (Config.tanksCompactSync) {
+				TankLevelSyncManager.instance.queue(this);
+				ticksSinceLastSync = 0;
+			} else {
+				sync();
+			}
 		}
 
-		if (needsUpdate && ticksSinceLastUpdate > UPDATE_THRESHOLD) {
-			needsUpdate = false;
-			ticksSinceLastUpdate = 0;
-			world.notifyNeighborsOfStateChange(pos, getBlockType(), false);
+		if (Config.tanksSleepWhenIdle && !hasPendingWork()) sleep();
+	}
+
+	private boolean hasPendingWork() {
+		if (needsSync) return true;
+		if (world.isRemote) return false;
+		if (Config.useTankNetworks) return network == null || needsNetworkConnect;
+		return Config.shouldTanksUpdate && forceUpdate;
+	}
+
+	private void sleep() {
+		sleeping = true;
+		sleepStart = world.getTotalWorldTime();
+		TileSleepManager.instance.sleep(this);
+	}
+
+	private void wakeUp() {
+		if (sleeping) {
+			sleeping = false;
+			// counters are only used for rate limiting, so time spent sleeping counts too
+			final int sleptTicks = (int)Math.min(world.getTotalWorldTime() - sleepStart, SYNC_THRESHOLD);
+			ticksSinceLastSync += sleptTicks;
+			TileSleepManager.instance.wake(this);
 		}
+	}
 
-		if (world.isRemote) renderLogic.validateConnections(world, getPos());
+	private void updateNeighbours() {
+		for (BlockPos neighbourPos : BlockPos.getAllInBoxMutable(pos.add(-1, -1, -1), pos.add(1, 1, 1))) {
+			if (neighbourPos.equals(pos)) continue;
+			final TileEntityTank neighbour = getNeighourTank(neighbourPos);
+			if (neighbour != null) {
+				neighbour.wakeUp();
+				neighbour.invalidateModelState();
+			}
+		}
 	}
 
 	private void tryGetNeighbor(List<TileEntityTank> result, FluidStack fluid, EnumFacing side) {
@@ -423,16 +633,52 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 	}
 
 	private void notifyNeigbours() {
-		needsUpdate = true;
+		if (!notificationQueued && !world.isRemote) {
+			notificationQueued = true;
+			NotificationCoalescer.instance.queue(world, this);
+		}
+	}
+
+	@Override
+	public void onCoalescedNotification() {
+		notificationQueued = false;
+		if (isInvalid()) return;
+
+		final int comparatorLevel = getComparatorLevel();
+		if (comparatorLevel != lastComparatorLevel) {
+			lastComparatorLevel = comparatorLevel;
+			world.updateComparatorOutputLevel(pos, getBlockType());
+		}
+
+		// networks don't need balancing, so there is nothing to do for neighbours
+		if (network == null) {
+			for (EnumFacing side : EnumFacing.VALUES) {
+				final TileEntityTank neighbour = getNeighourTank(pos.offset(side));
+				if (neighbour != null) neighbour.onNeighbourTankChanged();
+			}
+		}
+	}
+
+	private void onNeighbourTankChanged() {
+		forceUpdate = true;
+		wakeUp();
+	}
+
+	private void markColumnContentsChanged() {
+		if (column != null) column.markContentsChanged();
 	}
 
 	private void tankChanged() {
 		notifyNeigbours();
+		markColumnContentsChanged();
+		wakeUp();
 		tank.markDirty();
 	}
 
 	private void markContentsUpdated() {
 		notifyNeigbours();
+		markColumnContentsChanged();
+		wakeUp();
 		forceUpdate = true;
 	}
 
@@ -451,19 +697,20 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 	}
 
 	private void drainFromColumn(FluidStack needed, boolean doDrain) {
-		if (!containsFluid(needed) || needed.amount <= 0) return;
-
-		if (pos.getY() < 255) {
-			TileEntity te = world.getTileEntity(pos.up());
-			if (te instanceof TileEntityTank) ((TileEntityTank)te).drainFromColumn(needed, doDrain);
-		}
-
 		if (needed.amount <= 0) return;
 
-		FluidStack drained = internalDrain(needed.amount, doDrain);
-		if (drained == null) return;
+		final TankColumn column = TankColumn.get(this);
+		final int start = column.indexOf(this);
+
+		// tanks are drained from top, but only up to first one without requested fluid
+		int end = start;
+		while (end < column.size() && column.get(end).containsFluid(needed))
+			end++;
 
-		needed.amount -= drained.amount;
+		for (int i = end - 1; i >= start && needed.amount > 0; i--) {
+			final FluidStack drained = column.get(i).internalDrain(needed.amount, doDrain);
+			if (drained != null) needed.amount -= drained.amount;
+		}
 	}
 
 	private int internalFill(FluidStack resource, boolean doFill) {
@@ -473,15 +720,11 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 	}
 
 	private void fillColumn(FluidStack resource, boolean doFill) {
-		if (!accepts(resource) || resource.amount <= 0) return;
-
-		int amount = internalFill(resource, doFill);
-
-		resource.amount -= amount;
-
-		if (resource.amount > 0 && pos.getY() < 255) {
-			TileEntity te = world.getTileEntity(pos.up());
-			if (te instanceof TileEntityTank) ((TileEntityTank)te).fillColumn(resource, doFill);
+		final TankColumn column = TankColumn.get(this);
+		for (int i = column.indexOf(this); i < column.size() && resource.amount > 0; i++) {
+			final TileEntityTank tank = column.get(i);
+			if (!tank.accepts(resource)) break;
+			resource.amount -= tank.internalFill(resource, doFill);
 		}
 	}
 
@@ -492,6 +735,7 @@ public class TileEntityTank extends SyncedTileEntity implements IActivateAwareTi
 
 	@Override
 	public void addHarvestDrops(EntityPlayer player, List<ItemStack> drops, IBlockState blockState, int fortune, boolean isSilkTouch) {
+		flushNetwork();
 		ItemStack stack = new ItemStack(OpenBlocks.Blocks.tank);
 
 		if (tank.getFluidAmount() > 0) {
@@ -18,6 +18,7 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.EnumHand;
 import net.minecraft.util.EnumParticleTypes;
 import net.minecraft.util.ITickable;
+import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.fluids.FluidStack;
@@ -26,7 +27,9 @@ import net.minecraftforge.items.CapabilityItemHandler;
 import net.minecraftforge.items.ItemHandlerHelper;
 import openblocks.OpenBlocks;
 import openblocks.client.gui.GuiVacuumHopper;
+import openblocks.common.EntityScanScheduler;
 import openblocks.common.FluidXpUtils;
+import openblocks.common.XpOrbCoalescer;
 import openblocks.common.container.ContainerVacuumHopper;
 import openblocks.common.entity.EntityItemProjectile;
 import openmods.OpenMods;
@@ -39,7 +42,6 @@ import openmods.fixers.RegisterFixer;
 import openmods.include.IncludeInterface;
 import openmods.inventory.GenericInventory;
 import openmods.inventory.IInventoryProvider;
-import openmods.inventory.ItemMover;
 import openmods.inventory.TileEntityInventory;
 import openmods.liquids.SidedFluidCapabilityWrapper;
 import openmods.sync.ISyncListener;
@@ -50,7 +52,6 @@ import openmods.sync.SyncableSides;
 import openmods.sync.SyncableTank;
 import openmods.tileentity.SyncedTileEntity;
 import openmods.utils.EnchantmentUtils;
-import openmods.utils.InventoryUtils;
 import openmods.utils.ItemUtils;
 import openmods.utils.SidedInventoryAdapter;
 import openmods.utils.SidedItemHandlerAdapter;
@@ -82,6 +83,10 @@ public class TileEntityVacuumHopper extends SyncedTileEntity implements IInvento
 
 	private final SidedItemHandlerAdapter itemHandlerCapability = new SidedItemHandlerAdapter(inventory.getHandler());
 
+	private final ItemAcceptanceCache acceptanceCache = new ItemAcceptanceCache(inventory.getHandler());
+
+	private final NeighbourItemHandlers itemOutput = new NeighbourItemHandlers(this);
+
 	private final SidedFluidCapabilityWrapper tankCapability = SidedFluidCapabilityWrapper.wrap(tank, xpOutputs, true, false);
 
 	private Map<String, String> outputState = ImmutableMap.of();
@@ -98,6 +103,11 @@ public class TileEntityVacuumHopper extends SyncedTileEntity implements IInvento
 		sided.registerAllSlots(itemOutputs, false, true);
 
 		itemHandlerCapability.registerAllSlots(itemOutputs, false, true);
+
+		inventory.addCallback((inv, slot) -> {
+			acceptanceCache.invalidate();
+			scanSchedule.wake();
+		});
 	}
 
 	@Override
@@ -162,7 +172,7 @@ public class TileEntityVacuumHopper extends SyncedTileEntity implements IInvento
 
 		if (entity instanceof EntityItem) {
 			ItemStack stack = ((EntityItem)entity).getItem();
-			return InventoryUtils.canInsertStack(inventory.getHandler(), stack);
+			return acceptanceCache.canInsert(stack);
 		}
 
 		if (entity instanceof EntityXPOrb) return tank.getSpace() > 0;
@@ -170,6 +180,11 @@ public class TileEntityVacuumHopper extends SyncedTileEntity implements IInvento
 		return false;
 	};
 
+	private final EntityScanScheduler.Schedule scanSchedule = EntityScanScheduler.instance.createSchedule("vacuum_hopper", this, 3,
+			entity -> entity instanceof EntityItem || entity instanceof EntityXPOrb);
+
+	private final XpOrbCoalescer.Collector orbCollector = XpOrbCoalescer.instance.createCollector(this, new AxisAlignedBB(-3, -3, -3, 4, 4, 4));
+
 	@Override
 	public void update() {
 
@@ -179,32 +194,38 @@ public class TileEntityVacuumHopper extends SyncedTileEntity implements IInvento
 			spawnParticle(EnumParticleTypes.PORTAL, world.rand.nextDouble() - 0.5, world.rand.nextDouble() - 1.0, world.rand.nextDouble() - 0.5);
 		}
 
-		List<Entity> interestingItems = world.getEntitiesWithinAABB(Entity.class, getBB().grow(3), entitySelector);
-
 		boolean needsSync = false;
 
-		for (Entity entity : interestingItems) {
-			double dx = (pos.getX() + 0.5D - entity.posX);
-			double dy = (pos.getY() + 0.5D - entity.posY);
-			double dz = (pos.getZ() + 0.5D - entity.posZ);
-
-			double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
-			if (distance < 1.1) {
-				needsSync |= onEntityCollidedWithBlock(entity);
-			} else {
-				double var11 = 1.0 - distance / 15.0;
-
-				if (var11 > 0.0D) {
-					var11 *= var11;
-					entity.motionX += dx / distance * var11 * 0.05;
-					entity.motionY += dy / distance * var11 * 0.2;
-					entity.motionZ += dz / distance * var11 * 0.05;
+		if (scanSchedule.shouldScan()) {
+			final long scanStart = System.nanoTime();
+			final List<Entity> interestingItems = world.getEntitiesWithinAABB(Entity.class, getBB().grow(3), entitySelector);
+
+			for (Entity entity : interestingItems) {
+				double dx = (pos.getX() + 0.5D - entity.posX);
+				double dy = (pos.getY() + 0.5D - entity.posY);
+				double dz = (pos.getZ() + 0.5D - entity.posZ);
+
+				double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+				if (distance < 1.1) {
+					needsSync |= onEntityCollidedWithBlock(entity);
+				} else {
+					double var11 = 1.0 - distance / 15.0;
+
+					if (var11 > 0.0D) {
+						var11 *= var11;
+						entity.motionX += dx / distance * var11 * 0.05;
+						entity.motionY += dy / distance * var11 * 0.2;
+						entity.motionZ += dz / distance * var11 * 0.05;
+					}
 				}
+
 			}
 
+			scanSchedule.scanFinished(!interestingItems.isEmpty(), scanStart);
 		}
 
 		if (!world.isRemote) {
+			orbCollector.update();
 			needsSync |= outputToNeighbors();
 			if (needsSync) sync();
 		}
@@ -226,12 +247,11 @@ public class TileEntityVacuumHopper extends SyncedTileEntity implements IInvento
 	}
 
 	private void autoInventoryOutput() {
-		final boolean outputSides = itemOutputs.getValue().isEmpty();
-		if (outputSides) return;
-		final ItemMover mover = new ItemMover(world, pos).breakAfterFirstTry().randomizeSides().setSides(itemOutputs.getValue());
+		final Set<EnumFacing> outputSides = itemOutputs.getValue();
+		if (outputSides.isEmpty()) return;
 		for (int i = 0; i < inventory.getSizeInventory(); i++) {
 			if (!inventory.getStackInSlot(i).isEmpty()) {
-				if (mover.pushFromSlot(inventory.getHandler(), i) > 0) break;
+				if (itemOutput.pushFromSlot(inventory.getHandler(), i, outputSides, Integer.MAX_VALUE) > 0) break;
 			}
 		}
 	}
@@ -273,11 +293,15 @@ public class TileEntityVacuumHopper extends SyncedTileEntity implements IInvento
 			} else if (entity instanceof EntityXPOrb) {
 				if (tank.getSpace() > 0) {
 					EntityXPOrb orb = (EntityXPOrb)entity;
-					int xpAmount = FluidXpUtils.xpJuiceConverter.xpToFluid(orb.getXpValue());
-					FluidStack newFluid = new FluidStack(OpenBlocks.Fluids.xpJuice, xpAmount);
-					tank.fill(newFluid, true);
-					entity.setDead();
-					return true;
+					// merged orbs may not fit whole, so take only as many XP points as possible
+					int xpAmount = Math.min(orb.getXpValue(), FluidXpUtils.xpJuiceConverter.fluidToXp(tank.getSpace()));
+					if (xpAmount > 0) {
+						FluidStack newFluid = new FluidStack(OpenBlocks.Fluids.xpJuice, FluidXpUtils.xpJuiceConverter.xpToFluid(xpAmount));
+						tank.fill(newFluid, true);
+						orb.xpValue -= xpAmount;
+						if (orb.xpValue <= 0) entity.setDead();
+						return true;
+					}
 				}
 			}
 		}
@@ -301,6 +325,7 @@ public class TileEntityVacuumHopper extends SyncedTileEntity implements IInvento
 	public void readFromNBT(NBTTagCompound tag) {
 		super.readFromNBT(tag);
 		inventory.readFromNBT(tag);
+		acceptanceCache.invalidate();
 	}
 
 	@Override
@@ -309,9 +334,26 @@ public class TileEntityVacuumHopper extends SyncedTileEntity implements IInvento
 		this.needsTankUpdate = true;
 	}
 
+	@Override
+	public void invalidate() {
+		super.invalidate();
+		scanSchedule.unregister();
+		orbCollector.unregister();
+		itemOutput.invalidate();
+	}
+
+	@Override
+	public void onChunkUnload() {
+		super.onChunkUnload();
+		scanSchedule.unregister();
+		orbCollector.unregister();
+		itemOutput.invalidate();
+	}
+
 	@Override
 	public void onNeighbourChanged(BlockPos neighbourPos, Block neighbourBlock) {
 		this.needsTankUpdate = true;
+		itemOutput.invalidate();
 	}
 
 	public Map<String, String> getOutputState() {
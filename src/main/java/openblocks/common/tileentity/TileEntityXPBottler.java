@@ -21,6 +21,7 @@ import openblocks.OpenBlocks;
 import openblocks.client.gui.GuiXPBottler;
 import openblocks.common.FluidXpUtils;
 import openblocks.common.FluidXpUtils.IFluidXpConverter;
+import openblocks.common.MachineSyncTracker;
 import openblocks.common.container.ContainerXPBottler;
 import openblocks.common.tileentity.TileEntityXPBottler.AutoSlots;
 import openmods.api.IHasGui;
@@ -35,7 +36,6 @@ import openmods.gui.misc.IConfigurableGuiSlots;
 import openmods.include.IncludeInterface;
 import openmods.inventory.GenericInventory;
 import openmods.inventory.IInventoryProvider;
-import openmods.inventory.ItemMover;
 import openmods.inventory.TileEntityInventory;
 import openmods.liquids.SidedFluidCapabilityWrapper;
 import openmods.sync.SyncMap;
@@ -87,6 +87,8 @@ public class TileEntityXPBottler extends SyncedTileEntity implements IInventoryP
 
 	private final SidedItemHandlerAdapter itemHandlerCapability = new SidedItemHandlerAdapter(inventory.getHandler());
 
+	private final NeighbourItemHandlers neighbourItems = new NeighbourItemHandlers(this);
+
 	private SyncableInt progress;
 	private SyncableSides glassSides;
 	private SyncableSides xpBottleSides;
@@ -98,6 +100,10 @@ public class TileEntityXPBottler extends SyncedTileEntity implements IInventoryP
 
 	private final SidedFluidCapabilityWrapper tankCapability = SidedFluidCapabilityWrapper.wrap(tank, xpSides, false, true);
 
+	// progress is only used for GUI, so it doesn't need to be sent every tick
+	private final MachineSyncTracker.Tracker syncTracker = MachineSyncTracker.instance.createTracker("xp_bottler", 5,
+			progress, tank, glassSides, xpBottleSides, xpSides, automaticSlots);
+
 	@Override
 	protected void createSyncedFields() {
 		progress = new SyncableInt();
@@ -157,14 +163,12 @@ public class TileEntityXPBottler extends SyncedTileEntity implements IInventoryP
 				tank.fillFromSides(10, world, pos, xpSides.getValue());
 			}
 
-			final ItemMover mover = new ItemMover(world, pos).breakAfterFirstTry().randomizeSides().setMaxSize(1);
-
 			if (shouldAutoOutput() && hasOutputStack()) {
-				mover.setSides(xpBottleSides.getValue()).pushFromSlot(inventory.getHandler(), Slots.output.ordinal());
+				neighbourItems.pushFromSlot(inventory.getHandler(), Slots.output.ordinal(), xpBottleSides.getValue(), 1);
 			}
 
 			if (shouldAutoInput() && !hasGlassInInput()) {
-				mover.setSides(glassSides.getValue()).pullToSlot(inventory.getHandler(), Slots.input.ordinal());
+				neighbourItems.pullToSlot(inventory.getHandler(), Slots.input.ordinal(), glassSides.getValue(), 1);
 			}
 
 			logic.checkWorkCondition(hasSpaceInOutput() && hasGlassInInput() && hasEnoughFluid());
@@ -191,7 +195,7 @@ public class TileEntityXPBottler extends SyncedTileEntity implements IInventoryP
 				inventory.onInventoryChanged(Slots.output.ordinal());
 			}
 
-			sync();
+			if (syncTracker.shouldSync(world)) sync();
 		}
 	}
 
@@ -306,13 +310,27 @@ public class TileEntityXPBottler extends SyncedTileEntity implements IInventoryP
 		this.needsTankUpdate = true;
 	}
 
+	@Override
+	public void invalidate() {
+		super.invalidate();
+		neighbourItems.invalidate();
+	}
+
+	@Override
+	public void onChunkUnload() {
+		super.onChunkUnload();
+		neighbourItems.invalidate();
+	}
+
 	@Override
 	public void onNeighbourChanged(BlockPos neighbourPos, Block neighbourBlock) {
 		this.needsTankUpdate = true;
+		neighbourItems.invalidate();
 	}
 
 	@Override
 	public void onNeighbourTeChanged(BlockPos pos) {
 		this.needsTankUpdate = true;
+		neighbourItems.invalidate();
 	}
 }
@@ -7,11 +7,14 @@ import net.minecraft.init.SoundEvents;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.ITickable;
+import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.fluids.FluidStack;
 import net.minecraftforge.fluids.capability.IFluidHandler;
 import openblocks.OpenBlocks;
+import openblocks.common.EntityScanScheduler;
 import openblocks.common.FluidXpUtils;
+import openblocks.common.XpOrbCoalescer;
 import openmods.OpenMods;
 import openmods.tileentity.OpenTileEntity;
 import openmods.utils.BlockUtils;
@@ -20,9 +23,17 @@ import openmods.utils.EnchantmentUtils;
 
 public class TileEntityXPDrain extends OpenTileEntity implements ITickable {
 
+	private final EntityScanScheduler.Schedule scanSchedule = EntityScanScheduler.instance.createSchedule("xp_drain", this, 0,
+			entity -> entity instanceof EntityXPOrb || entity instanceof EntityPlayer);
+
+	// orbs are usually dropped by mobs killed above grid
+	private final XpOrbCoalescer.Collector orbCollector = XpOrbCoalescer.instance.createCollector(this, new AxisAlignedBB(0, 0, 0, 1, 3, 1));
+
 	@Override
 	public void update() {
-		if (!world.isRemote) {
+		if (!world.isRemote && scanSchedule.shouldScan()) {
+			final long scanStart = System.nanoTime();
+			orbCollector.update();
 			final List<EntityXPOrb> xpOrbsOnGrid = getXPOrbsOnGrid();
 			final List<EntityPlayer> playersOnGrid = getPlayersOnGrid();
 
@@ -45,9 +56,25 @@ public class TileEntityXPDrain extends OpenTileEntity implements ITickable {
 					}
 				}
 			}
+
+			scanSchedule.scanFinished(!xpOrbsOnGrid.isEmpty() || !playersOnGrid.isEmpty(), scanStart);
 		}
 	}
 
+	@Override
+	public void invalidate() {
+		super.invalidate();
+		scanSchedule.unregister();
+		orbCollector.unregister();
+	}
+
+	@Override
+	public void onChunkUnload() {
+		super.onChunkUnload();
+		scanSchedule.unregister();
+		orbCollector.unregister();
+	}
+
 	protected void tryDrainPlayer(IFluidHandler tank, EntityPlayer player) {
 		int playerXP = EnchantmentUtils.getPlayerXP(player);
 		if (playerXP <= 0) return;
@@ -79,11 +106,17 @@ public class TileEntityXPDrain extends OpenTileEntity implements ITickable {
 		if (!orb.isDead) {
 			int xpAmount = FluidXpUtils.xpJuiceConverter.xpToFluid(orb.getXpValue());
 			FluidStack xpStack = new FluidStack(OpenBlocks.Fluids.xpJuice, xpAmount);
-			int filled = tank.fill(xpStack, false);
-			if (filled == xpStack.amount) {
-				tank.fill(xpStack, true);
-				orb.setDead();
-			}
+			int maxAcceptedLiquid = tank.fill(xpStack, false);
+
+			// merged orbs may not fit whole, so take only as many XP points as possible
+			int acceptedXP = FluidXpUtils.xpJuiceConverter.fluidToXp(maxAcceptedLiquid);
+			if (acceptedXP <= 0) return;
+
+			xpStack.amount = FluidXpUtils.xpJuiceConverter.xpToFluid(acceptedXP);
+			int finallyAcceptedXP = FluidXpUtils.xpJuiceConverter.fluidToXp(tank.fill(xpStack, true));
+
+			orb.xpValue -= finallyAcceptedXP;
+			if (orb.xpValue <= 0) orb.setDead();
 		}
 	}
 
@@ -12,6 +12,7 @@ import net.minecraftforge.fluids.FluidStack;
 import openblocks.OpenBlocks;
 import openblocks.common.FluidXpUtils;
 import openblocks.common.FluidXpUtils.IFluidXpConverter;
+import openblocks.common.MachineSyncTracker;
 import openblocks.common.block.BlockXPShower;
 import openblocks.common.entity.EntityXPOrbNoFly;
 import openmods.OpenMods;
@@ -32,6 +33,8 @@ public class TileEntityXPShower extends SyncedTileEntity implements ITickable {
 	private SyncableBoolean particleSpawnerActive;
 	private int particleSpawnTimer = 0;
 
+	private final MachineSyncTracker.Tracker syncTracker = MachineSyncTracker.instance.createTracker("xp_shower", 1, particleSpawnerActive);
+
 	@Override
 	protected void createSyncedFields() {
 		particleSpawnerActive = new SyncableBoolean();
@@ -47,8 +50,11 @@ public class TileEntityXPShower extends SyncedTileEntity implements ITickable {
 	}
 
 	private void trySpawnXpOrbs() {
+		// state is only updated on spawn ticks, so it doesn't flip (and need sync) between them
+		if (OpenMods.proxy.getTicks(world) % ORB_SPAWN_FREQUENCY != 0) return;
+
 		boolean hasSpawnedParticle = false;
-		if (OpenMods.proxy.getTicks(world) % ORB_SPAWN_FREQUENCY == 0 && isPowered()) {
+		if (isPowered()) {
 			bufferTank.fillFromSide(DRAIN_PER_CYCLE, world, pos, getBack());
 
 			final FluidStack tankContents = bufferTank.getFluid();
@@ -72,7 +78,7 @@ public class TileEntityXPShower extends SyncedTileEntity implements ITickable {
 		}
 
 		particleSpawnerActive.set(hasSpawnedParticle);
-		sync();
+		if (syncTracker.shouldSync(world)) sync();
 	}
 
 	private boolean isPowered() {
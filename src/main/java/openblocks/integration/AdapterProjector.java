@@ -151,7 +151,7 @@ public class AdapterProjector implements IPeripheralAdapter {
 		LayerData layerData = data.layers[layer];
 		layerData.heightMap[index] = (byte)height;
 		layerData.colorMap[index] = (byte)color;
-		projector.markMapDirty();
+		projector.markMapPixelDirty(column, row);
 	}
 
 	@ScriptCallable(description = "Clear map")
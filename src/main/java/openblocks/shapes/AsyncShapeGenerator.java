@@ -0,0 +1,42 @@
+package openblocks.shapes;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import openblocks.Config;
+
+/**
+ * Background executor for guide shapes. Results must be picked up by owner on its own thread.
+ */
+public class AsyncShapeGenerator {
+
+	private static ExecutorService executor;
+
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			final int threadCount = Math.max(1, Config.guideShapeGeneratorThreads);
+			executor = Executors.newFixedThreadPool(threadCount, new ThreadFactoryBuilder()
+					.setNameFormat("OpenBlocks guide shape generator #%d")
+					.setDaemon(true)
+					.setPriority(Thread.MIN_PRIORITY)
+					.build());
+		}
+
+		return executor;
+	}
+
+	public static CoordShape generate(ShapeParams params) {
+		return new CoordShape(params, ShapeCache.get(params));
+	}
+
+	/**
+	 * @return future for generated shape. Cancelled tasks that were not yet started will be skipped. If shape is already cached, returned future is already completed.
+	 */
+	public static Future<CoordShape> submit(ShapeParams params) {
+		// single lookup per request, so cache statistics are not skewed by probe
+		if (ShapeCache.isPresent(params)) return Futures.immediateFuture(generate(params));
+		return getExecutor().submit(() -> generate(params));
+	}
+}
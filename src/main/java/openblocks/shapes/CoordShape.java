@@ -1,52 +1,52 @@
 package openblocks.shapes;
 
-import java.nio.ByteBuffer;
-import java.util.List;
+import com.google.common.base.Preconditions;
 import net.minecraft.util.math.BlockPos;
-import net.minecraftforge.fml.relauncher.Side;
-import net.minecraftforge.fml.relauncher.SideOnly;
-import openmods.renderer.shaders.BufferHelper;
-import org.lwjgl.BufferUtils;
-import org.lwjgl.opengl.GL15;
+import openmods.shapes.IShapeable;
 
+/**
+ * Immutable list of coordinates, relative to guide position. Coordinates are stored packed (see {@link PackedCoords}), so there is no per-point allocation.
+ */
 public class CoordShape {
 
-	@SideOnly(Side.CLIENT)
-	private int vbo;
+	private final ShapeParams params;
 
-	private final List<BlockPos> coords;
+	private final long[] coords;
 
-	public CoordShape(List<BlockPos> coords) {
+	public CoordShape(ShapeParams params, long[] coords) {
+		this.params = Preconditions.checkNotNull(params);
 		this.coords = coords;
 	}
 
-	@SideOnly(Side.CLIENT)
-	public int bindVBO() {
-		if (vbo == 0) {
-			ByteBuffer data = BufferUtils.createByteBuffer(coords.size() * 3 * 4);
-			for (BlockPos c : coords)
-				data.putFloat(c.getX() - 0.5f).putFloat(c.getY()).putFloat(c.getZ() - 0.5f);
-			data.flip();
+	/**
+	 * Parameters used to generate this shape. Shapes with equal parameters have same contents.
+	 */
+	public ShapeParams getParams() {
+		return params;
+	}
+
+	public int size() {
+		return coords.length;
+	}
 
-			vbo = BufferHelper.methods().glGenBuffers();
-			BufferHelper.methods().glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
-			BufferHelper.methods().glBufferData(GL15.GL_ARRAY_BUFFER, data, GL15.GL_STATIC_DRAW);
-		} else BufferHelper.methods().glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+	public int getX(int index) {
+		return PackedCoords.getX(coords[index]);
+	}
 
-		return vbo;
+	public int getY(int index) {
+		return PackedCoords.getY(coords[index]);
 	}
 
-	public List<BlockPos> getCoords() {
-		return coords;
+	public int getZ(int index) {
+		return PackedCoords.getZ(coords[index]);
 	}
 
-	public int size() {
-		return coords.size();
+	public BlockPos getCoord(int index) {
+		return PackedCoords.toBlockPos(coords[index]);
 	}
 
-	@SideOnly(Side.CLIENT)
-	public void destroy() {
-		if (vbo != 0) BufferHelper.methods().glDeleteBuffers(vbo);
-		vbo = 0;
+	public void iterate(IShapeable visitor) {
+		for (long c : coords)
+			visitor.setBlock(PackedCoords.getX(c), PackedCoords.getY(c), PackedCoords.getZ(c));
 	}
 }
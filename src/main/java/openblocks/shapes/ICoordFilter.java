@@ -0,0 +1,5 @@
+package openblocks.shapes;
+
+public interface ICoordFilter {
+	public boolean canAdd(int x, int y, int z);
+}
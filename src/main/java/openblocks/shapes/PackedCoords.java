@@ -0,0 +1,42 @@
+package openblocks.shapes;
+
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Helpers for coordinates packed into single {@code long}.
+ * Layout is same as in {@link BlockPos#toLong()}, so packed values can be passed directly to {@link BlockPos#fromLong(long)}.
+ */
+public class PackedCoords {
+
+	private static final int BITS_X = 26;
+	private static final int BITS_Y = 12;
+	private static final int BITS_Z = 26;
+
+	private static final int SHIFT_Z = 0;
+	private static final int SHIFT_Y = SHIFT_Z + BITS_Z;
+	private static final int SHIFT_X = SHIFT_Y + BITS_Y;
+
+	private static final long MASK_X = (1L << BITS_X) - 1L;
+	private static final long MASK_Y = (1L << BITS_Y) - 1L;
+	private static final long MASK_Z = (1L << BITS_Z) - 1L;
+
+	public static long pack(int x, int y, int z) {
+		return ((x & MASK_X) << SHIFT_X) | ((y & MASK_Y) << SHIFT_Y) | ((z & MASK_Z) << SHIFT_Z);
+	}
+
+	public static int getX(long packed) {
+		return (int)(packed << (64 - SHIFT_X - BITS_X) >> (64 - BITS_X));
+	}
+
+	public static int getY(long packed) {
+		return (int)(packed << (64 - SHIFT_Y - BITS_Y) >> (64 - BITS_Y));
+	}
+
+	public static int getZ(long packed) {
+		return (int)(packed << (64 - SHIFT_Z - BITS_Z) >> (64 - BITS_Z));
+	}
+
+	public static BlockPos toBlockPos(long packed) {
+		return new BlockPos(getX(packed), getY(packed), getZ(packed));
+	}
+}
@@ -0,0 +1,142 @@
+package openblocks.shapes;
+
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import openmods.geometry.Orientation;
+import openmods.shapes.IShapeGenerator;
+import openmods.shapes.IShapeable;
+
+/**
+ * Generates guide shapes without allocating per-coordinate objects.
+ * Every stage works on coordinates packed with {@link PackedCoords} and has no access to world, so it can be safely called from any thread.
+ */
+public class PackedShapeBuilder {
+
+	public static long[] build(ShapeParams params) {
+		final long[] uniqueCoords = collect(params.shape.generator, params);
+		final long[] sortedCoords = sort(uniqueCoords);
+		return transform(sortedCoords, params.orientation);
+	}
+
+	public static long[] collect(IShapeGenerator generator, ShapeParams params) {
+		final ICoordFilter filter = params.filter;
+		final TLongSet uniqueResults = new TLongHashSet();
+		final IShapeable collector = (x, y, z) -> {
+			if (filter.canAdd(x, y, z)) uniqueResults.add(PackedCoords.pack(x, y, z));
+		};
+		generator.generateShape(-params.negX, -params.negY, -params.negZ, params.posX, params.posY, params.posZ, collector);
+		return uniqueResults.toArray();
+	}
+
+	/**
+	 * Orders coordinates to make manual placement more intuitive. Sort keys are calculated once per coordinate, instead of once per comparison.
+	 */
+	public static long[] sort(long[] coords) {
+		final int count = coords.length;
+
+		final int[] xs = new int[count];
+		final int[] ys = new int[count];
+		final int[] zs = new int[count];
+		final double[] angles = new double[count];
+		final int[] lengthsSq = new int[count];
+
+		final int[] order = new int[count];
+
+		for (int i = 0; i < count; i++) {
+			final long c = coords[i];
+			final int x = PackedCoords.getX(c);
+			final int z = PackedCoords.getZ(c);
+			xs[i] = x;
+			ys[i] = PackedCoords.getY(c);
+			zs[i] = z;
+			angles[i] = Math.atan2(z, x);
+			lengthsSq[i] = x * x + z * z;
+			order[i] = i;
+		}
+
+		final IndexComparator comparator = (i1, i2) -> {
+			// first, go from bottom to top
+			int result = Integer.compare(xs[i1], xs[i2]);
+			if (result != 0) return result;
+
+			// then sort by angle, to make placement more intuitive
+			result = Double.compare(angles[i1], angles[i2]);
+			if (result != 0) return result;
+
+			// then sort by distance, far ones first
+			result = Integer.compare(lengthsSq[i2], lengthsSq[i1]);
+			if (result != 0) return result;
+
+			// then sort by remaining coordinates to make order deterministic
+			result = Integer.compare(zs[i1], zs[i2]);
+			if (result != 0) return result;
+
+			return Integer.compare(ys[i1], ys[i2]);
+		};
+
+		mergeSort(order, new int[count], 0, count, comparator);
+
+		final long[] result = new long[count];
+		for (int i = 0; i < count; i++)
+			result[i] = coords[order[i]];
+
+		return result;
+	}
+
+	public static long[] transform(long[] coords, Orientation orientation) {
+		final long[] result = new long[coords.length];
+
+		for (int i = 0; i < coords.length; i++) {
+			final long c = coords[i];
+			final int x = PackedCoords.getX(c);
+			final int y = PackedCoords.getY(c);
+			final int z = PackedCoords.getZ(c);
+
+			final int tx = orientation.transformX(x, y, z);
+			final int ty = orientation.transformY(x, y, z);
+			final int tz = orientation.transformZ(x, y, z);
+
+			result[i] = PackedCoords.pack(tx, ty, tz);
+		}
+
+		return result;
+	}
+
+	private interface IndexComparator {
+		public int compare(int i1, int i2);
+	}
+
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	private static void mergeSort(int[] values, int[] tmp, int from, int to, IndexComparator comparator) {
+		final int length = to - from;
+		if (length <= INSERTION_SORT_THRESHOLD) {
+			for (int i = from + 1; i < to; i++) {
+				final int v = values[i];
+				int j = i - 1;
+				while (j >= from && comparator.compare(values[j], v) > 0) {
+					values[j + 1] = values[j];
+					j--;
+				}
+				values[j + 1] = v;
+			}
+			return;
+		}
+
+		final int middle = (from + to) >>> 1;
+		mergeSort(values, tmp, from, middle, comparator);
+		mergeSort(values, tmp, middle, to, comparator);
+
+		// already ordered
+		if (comparator.compare(values[middle - 1], values[middle]) <= 0) return;
+
+		System.arraycopy(values, from, tmp, from, length);
+
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right >= to || (left < middle && comparator.compare(tmp[left], tmp[right]) <= 0)) values[i] = tmp[left++];
+			else values[i] = tmp[right++];
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package openblocks.shapes;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import openblocks.Config;
+
+/**
+ * Process-wide cache of generated shapes. Shapes depend only on parameters, so guides with same shape, size and orientation reuse single packed array.
+ * Size is limited by total number of points, least recently used shapes are evicted first.
+ */
+public class ShapeCache {
+
+	private static LoadingCache<ShapeParams, long[]> cache;
+
+	private static synchronized LoadingCache<ShapeParams, long[]> getCache() {
+		if (cache == null) {
+			// weight limit is split between segments, so single segment is needed to fit shapes close to limit
+			cache = CacheBuilder.newBuilder()
+					.concurrencyLevel(1)
+					.maximumWeight(Math.max(0, Config.guideShapeCacheSize))
+					.weigher((ShapeParams key, long[] value) -> value.length)
+					.recordStats()
+					.build(new CacheLoader<ShapeParams, long[]>() {
+						@Override
+						public long[] load(ShapeParams key) throws Exception {
+							return PackedShapeBuilder.build(key);
+						}
+					});
+		}
+
+		return cache;
+	}
+
+	/**
+	 * @return shared array - must not be modified
+	 */
+	public static long[] get(ShapeParams params) {
+		return getCache().getUnchecked(params);
+	}
+
+	/**
+	 * Checks if shape is already generated. Unlike {@link #get(ShapeParams)}, does not count as cache hit or miss.
+	 */
+	public static boolean isPresent(ShapeParams params) {
+		return getCache().asMap().containsKey(params);
+	}
+
+	public static CacheStats getStats() {
+		return getCache().stats();
+	}
+
+	public static long getSize() {
+		return getCache().size();
+	}
+}
@@ -0,0 +1,70 @@
+package openblocks.shapes;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import openmods.geometry.Orientation;
+
+/**
+ * Immutable snapshot of everything needed to generate guide shape, so generation can be done outside of owning tile entity (and thread).
+ */
+public class ShapeParams {
+	public final GuideShape shape;
+
+	public final int negX;
+	public final int negY;
+	public final int negZ;
+
+	public final int posX;
+	public final int posY;
+	public final int posZ;
+
+	public final Orientation orientation;
+
+	public final ICoordFilter filter;
+
+	private final int hash;
+
+	public ShapeParams(GuideShape shape, int negX, int negY, int negZ, int posX, int posY, int posZ, Orientation orientation, ICoordFilter filter) {
+		this.shape = Preconditions.checkNotNull(shape);
+		this.negX = negX;
+		this.negY = negY;
+		this.negZ = negZ;
+		this.posX = posX;
+		this.posY = posY;
+		this.posZ = posZ;
+		this.orientation = Preconditions.checkNotNull(orientation);
+		this.filter = Preconditions.checkNotNull(filter);
+		// used as map key on every frame, so calculate only once
+		this.hash = Objects.hashCode(shape, negX, negY, negZ, posX, posY, posZ, orientation, filter);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) return true;
+		if (obj instanceof ShapeParams) {
+			final ShapeParams other = (ShapeParams)obj;
+			return other.hash == this.hash &&
+					other.shape == this.shape &&
+					other.negX == this.negX &&
+					other.negY == this.negY &&
+					other.negZ == this.negZ &&
+					other.posX == this.posX &&
+					other.posY == this.posY &&
+					other.posZ == this.posZ &&
+					other.orientation == this.orientation &&
+					other.filter == this.filter;
+		}
+
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[-%d,-%d,-%d:+%d,+%d,+%d]@%s", shape, negX, negY, negZ, posX, posY, posZ, orientation);
+	}
+}
@@ -0,0 +1,93 @@
+package openblocks.shapes;
+
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import java.util.BitSet;
+
+/**
+ * Tracks which points of shape may still be empty. Set bit does not guarantee that point is empty (it must be verified before use),
+ * but cleared bit means that point was filled and nothing changed since.
+ */
+public class UnfilledCoords {
+
+	private static final int NO_INDEX = -1;
+
+	private final CoordShape shape;
+
+	private final BitSet unfilled;
+
+	private final TLongIntMap indices;
+
+	private int minX;
+	private int minY;
+	private int minZ;
+
+	private int maxX;
+	private int maxY;
+	private int maxZ;
+
+	public UnfilledCoords(CoordShape shape) {
+		this.shape = shape;
+
+		final int size = shape.size();
+		this.unfilled = new BitSet(size);
+		this.unfilled.set(0, size);
+
+		this.indices = new TLongIntHashMap(size, 0.5f, 0, NO_INDEX);
+
+		for (int i = 0; i < size; i++) {
+			final int x = shape.getX(i);
+			final int y = shape.getY(i);
+			final int z = shape.getZ(i);
+
+			if (i == 0 || x < minX) minX = x;
+			if (i == 0 || y < minY) minY = y;
+			if (i == 0 || z < minZ) minZ = z;
+
+			if (i == 0 || x > maxX) maxX = x;
+			if (i == 0 || y > maxY) maxY = y;
+			if (i == 0 || z > maxZ) maxZ = z;
+
+			indices.put(PackedCoords.pack(x, y, z), i);
+		}
+	}
+
+	public CoordShape getShape() {
+		return shape;
+	}
+
+	/**
+	 * @return index of first point (starting from {@code from}) that may still be empty or -1, if there is none
+	 */
+	public int nextCandidate(int from) {
+		return unfilled.nextSetBit(from);
+	}
+
+	public boolean isEmpty() {
+		return unfilled.isEmpty();
+	}
+
+	public void markFilled(int index) {
+		unfilled.clear(index);
+	}
+
+	public void markAllUnfilled() {
+		unfilled.set(0, shape.size());
+	}
+
+	public boolean contains(int x, int y, int z) {
+		return x >= minX && x <= maxX &&
+				y >= minY && y <= maxY &&
+				z >= minZ && z <= maxZ;
+	}
+
+	/**
+	 * Called when block at (relative) position may have been removed.
+	 */
+	public void markUnfilled(int x, int y, int z) {
+		if (contains(x, y, z)) {
+			final int index = indices.get(PackedCoords.pack(x, y, z));
+			if (index != NO_INDEX) unfilled.set(index);
+		}
+	}
+}
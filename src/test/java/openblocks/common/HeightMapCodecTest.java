@@ -0,0 +1,135 @@
+package openblocks.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import openblocks.common.HeightMapData.LayerData;
+import org.junit.Test;
+
+public class HeightMapCodecTest {
+
+	private static final int RAW_SIZE = 2 * HeightMapData.SIZE * HeightMapData.SIZE;
+
+	private static LayerData hills() {
+		final Random random = new Random(0);
+		final LayerData layer = new LayerData();
+		for (int y = 0; y < HeightMapData.SIZE; y++)
+			for (int x = 0; x < HeightMapData.SIZE; x++) {
+				final int index = y * HeightMapData.SIZE + x;
+				final int height = 70 + (int)(12 * Math.sin(x / 7.0) + 9 * Math.cos(y / 5.0)) + random.nextInt(2);
+				layer.heightMap[index] = (byte)height;
+				layer.colorMap[index] = (byte)(height < 64? 12 : (height > 85? 11 : 1));
+			}
+		return layer;
+	}
+
+	private static LayerData noise() {
+		final Random random = new Random(0);
+		final LayerData layer = new LayerData();
+		random.nextBytes(layer.heightMap);
+		random.nextBytes(layer.colorMap);
+		return layer;
+	}
+
+	private static byte[] checkRoundTrip(LayerData layer) throws DataFormatException {
+		final byte[] encoded = HeightMapCodec.encode(layer);
+		final LayerData decoded = new LayerData();
+		HeightMapCodec.decode(encoded, decoded);
+		assertArrayEquals(layer.heightMap, decoded.heightMap);
+		assertArrayEquals(layer.colorMap, decoded.colorMap);
+		return encoded;
+	}
+
+	@Test
+	public void testEmptyLayer() throws DataFormatException {
+		final byte[] encoded = checkRoundTrip(new LayerData());
+		assertTrue("Empty layer size: " + encoded.length, encoded.length < 64);
+	}
+
+	@Test
+	public void testHillsLayer() throws DataFormatException {
+		final byte[] encoded = checkRoundTrip(hills());
+		assertTrue("Hills layer size: " + encoded.length, encoded.length < RAW_SIZE / 4);
+	}
+
+	@Test
+	public void testNoiseLayer() throws DataFormatException {
+		final byte[] encoded = checkRoundTrip(noise());
+		// incompressible data is stored raw, with only method byte added
+		assertEquals(RAW_SIZE + 1, encoded.length);
+	}
+
+	@Test(expected = DataFormatException.class)
+	public void testTruncatedData() throws DataFormatException {
+		final byte[] encoded = HeightMapCodec.encode(hills());
+		final byte[] truncated = new byte[encoded.length / 2];
+		System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+		HeightMapCodec.decode(truncated, new LayerData());
+	}
+
+	@Test
+	public void testNBTRoundTrip() {
+		final HeightMapData data = new HeightMapData(3, false);
+		data.dimension = -1;
+		data.centerX = 128;
+		data.centerZ = -256;
+		data.scale = 2;
+		final LayerData layer = hills();
+		layer.alpha = 100;
+		data.layers = new LayerData[] { layer, noise() };
+
+		final NBTTagCompound tag = data.writeToNBT(new NBTTagCompound());
+		assertEquals(HeightMapData.FORMAT_VERSION, tag.getInteger("Version"));
+
+		final HeightMapData loaded = new HeightMapData(3, false);
+		loaded.readFromNBT(tag);
+		assertEquals(-1, loaded.dimension);
+		assertEquals(128, loaded.centerX);
+		assertEquals(-256, loaded.centerZ);
+		assertEquals(2, loaded.scale);
+		assertEquals(2, loaded.layers.length);
+		assertEquals(100, loaded.layers[0].alpha);
+		for (int i = 0; i < 2; i++) {
+			assertArrayEquals(data.layers[i].heightMap, loaded.layers[i].heightMap);
+			assertArrayEquals(data.layers[i].colorMap, loaded.layers[i].colorMap);
+		}
+	}
+
+	@Test
+	public void testLegacyNBTImport() {
+		final LayerData original = hills();
+
+		final NBTTagCompound layerTag = new NBTTagCompound();
+		layerTag.setByte("Alpha", (byte)50);
+		layerTag.setByteArray("Height", original.heightMap.clone());
+		layerTag.setByteArray("Color", original.colorMap.clone());
+
+		final NBTTagList layers = new NBTTagList();
+		layers.appendTag(layerTag);
+
+		final NBTTagCompound tag = new NBTTagCompound();
+		tag.setInteger("Dimension", 0);
+		tag.setInteger("CenterX", 64);
+		tag.setInteger("CenterZ", 64);
+		tag.setByte("Scale", (byte)1);
+		tag.setTag("Layers", layers);
+
+		final HeightMapData loaded = new HeightMapData(0, false);
+		loaded.readFromNBT(tag);
+		assertEquals(1, loaded.layers.length);
+		assertEquals(50, loaded.layers[0].alpha);
+		assertArrayEquals(original.heightMap, loaded.layers[0].heightMap);
+		assertArrayEquals(original.colorMap, loaded.layers[0].colorMap);
+
+		// converted to new format on save
+		final NBTTagCompound saved = loaded.writeToNBT(new NBTTagCompound()).getTagList("Layers", 10).getCompoundTagAt(0);
+		assertTrue(saved.hasKey("Data"));
+		assertFalse(saved.hasKey("Height"));
+	}
+}